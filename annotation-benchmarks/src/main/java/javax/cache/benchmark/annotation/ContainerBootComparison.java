@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import javax.cache.benchmark.BenchmarkReport;
+import javax.cache.benchmark.ForkedJvm;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The start up cost of each harness: the Guice injector, the Spring application context and the Weld container.
+ * <p/>
+ * Each run starts a new JVM with {@link ContainerBootProbe}. The number of runs per harness defaults to 5 and can
+ * be set with the system property "boot.runs". The harnesses to run are selected with the system property
+ * "harnesses". The median, minimum and maximum of each measurement are reported, in milliseconds or classes.
+ *
+ * @since 1.0
+ */
+public final class ContainerBootComparison {
+
+    private static final String[] STEPS = {"boot", "getBean", "firstCall"};
+
+    private ContainerBootComparison() {
+        //main class only
+    }
+
+    /**
+     * Runs the probe in new JVMs for each harness and writes the "annotation-boot" report.
+     *
+     * @param args not used
+     * @throws Exception if a JVM fails
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("boot.runs", 5);
+
+        BenchmarkReport report = new BenchmarkReport("annotation-boot", "harness", "measurement", "median", "min", "max");
+        for (Harness harness : Harness.selected()) {
+            Map<String, List<Double>> measurements = new LinkedHashMap<String, List<Double>>();
+            for (int run = 0; run < runs; run++) {
+                for (Map.Entry<String, Double> entry : measure(harness.fork(ContainerBootProbe.class.getName())).entrySet()) {
+                    List<Double> values = measurements.get(entry.getKey());
+                    if (values == null) {
+                        values = new ArrayList<Double>();
+                        measurements.put(entry.getKey(), values);
+                    }
+                    values.add(entry.getValue());
+                }
+            }
+            for (Map.Entry<String, List<Double>> entry : measurements.entrySet()) {
+                List<Double> values = entry.getValue();
+                Collections.sort(values);
+                report.addRow(harness, entry.getKey(), values.get(values.size() / 2), values.get(0),
+                        values.get(values.size() - 1));
+            }
+        }
+        report.write();
+    }
+
+    /**
+     * Calculates the reported measurements from the results of one run
+     */
+    private static Map<String, Double> measure(Properties results) {
+        long launched = getLong(results, ForkedJvm.LAUNCHED_AT_MILLIS);
+        Map<String, Double> measurements = new LinkedHashMap<String, Double>();
+        measurements.put("launch to main ms", (double) (getLong(results, "mainEnteredAtMillis") - launched));
+        measurements.put("launch to first call ms", (double) (getLong(results, "firstCallAtMillis") - launched));
+        for (String step : STEPS) {
+            measurements.put(step + " ms", getLong(results, step + "Nanos") / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            measurements.put(step + " classes", (double) getLong(results, step + "ClassesLoaded"));
+        }
+        return measurements;
+    }
+
+    private static long getLong(Properties results, String key) {
+        String value = results.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("The probe did not record " + key + ": " + results);
+        }
+        return Long.parseLong(value);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import domain.Blog;
+import manager.BlogManager;
+import manager.CacheNameOnEachMethodBlogManagerImpl;
+
+import javax.cache.annotation.BeanProvider;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+/**
+ * Starts the container of a harness in a new JVM, run by {@link ContainerBootComparison}.
+ * <p/>
+ * Records the time taken by, and the classes loaded by, each step: loading and constructing the
+ * {@link BeanProvider}, which creates the Guice injector, the Spring application context or the Weld container,
+ * getting the first bean, and the first intercepted call. The JVM start time and the time main was entered are
+ * recorded too, so that the time from launching the JVM can be calculated.
+ *
+ * @since 1.0
+ */
+public final class ContainerBootProbe {
+
+    private final Properties results = new Properties();
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private long stepStartNanos;
+    private long stepStartClasses;
+
+    private ContainerBootProbe() {
+        record("jvmStartedAtMillis", ManagementFactory.getRuntimeMXBean().getStartTime());
+        record("mainEnteredAtMillis", System.currentTimeMillis());
+    }
+
+    /**
+     * Runs the probe.
+     *
+     * @param args the results file
+     * @throws IOException if the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        ContainerBootProbe probe = new ContainerBootProbe();
+        probe.probe();
+        probe.write(args[0]);
+    }
+
+    private void probe() {
+        startStep();
+        BeanProvider beanProvider = Harness.loadBeanProvider();
+        endStep("boot");
+
+        startStep();
+        BlogManager blogManager = beanProvider.getBeanByType(CacheNameOnEachMethodBlogManagerImpl.class);
+        endStep("getBean");
+
+        blogManager.createEntry(new Blog("boot", "body"));
+        startStep();
+        blogManager.getEntryCached("boot");
+        endStep("firstCall");
+        record("firstCallAtMillis", System.currentTimeMillis());
+    }
+
+    private void startStep() {
+        stepStartClasses = classLoading.getTotalLoadedClassCount();
+        stepStartNanos = System.nanoTime();
+    }
+
+    private void endStep(String step) {
+        long nanos = System.nanoTime() - stepStartNanos;
+        record(step + "Nanos", nanos);
+        record(step + "ClassesLoaded", classLoading.getTotalLoadedClassCount() - stepStartClasses);
+    }
+
+    private void record(String key, long value) {
+        results.setProperty(key, Long.toString(value));
+    }
+
+    private void write(String file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            results.store(out, ContainerBootProbe.class.getName());
+        } finally {
+            out.close();
+        }
+    }
+}
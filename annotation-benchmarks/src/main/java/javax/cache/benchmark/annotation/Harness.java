@@ -0,0 +1,161 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import javax.cache.annotation.BeanProvider;
+import javax.cache.benchmark.ForkedJvm;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An annotations test harness, which provides the annotated beans through a {@link BeanProvider}.
+ * <p/>
+ * The harnesses are not on the classpath of this module. The build writes the classpath of each to a file in the
+ * directory named by the system property "harness.classpathDir", and {@link #fork(String, String...)} starts a JVM
+ * with it, so that exactly one {@link BeanProvider} can be found in that JVM.
+ *
+ * @since 1.0
+ */
+public enum Harness {
+
+    /**
+     * GuiceBeanProvider
+     */
+    GUICE("guice-annotations-test-harness"),
+
+    /**
+     * SpringBeanProvider
+     */
+    SPRING("spring-annotations-test-harness"),
+
+    /**
+     * CdiBeanProvider, which boots Weld
+     */
+    CDI("cdi-weld-annotations-test-harness");
+
+    private static final long DEFAULT_TIMEOUT_MINUTES = 120;
+
+    private final String artifactId;
+
+    private Harness(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    /**
+     * @return the artifactId of the harness, as used for annotation-harness-artifactId by implementation-tester
+     */
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * Runs JMH in a new JVM with this harness on the classpath.
+     *
+     * @param include a regular expression selecting the benchmarks to run
+     * @param jmhArgs JMH command line options
+     * @return the scores
+     * @throws IOException          if the JVM could not be started or fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<HarnessScore> run(String include, String... jmhArgs) throws IOException, InterruptedException {
+        String[] args = new String[jmhArgs.length + 1];
+        args[0] = include;
+        System.arraycopy(jmhArgs, 0, args, 1, jmhArgs.length);
+        return HarnessScore.fromProperties(fork(HarnessRunner.class.getName(), args));
+    }
+
+    /**
+     * Runs a main class in a new JVM with this harness on the classpath, see {@link ForkedJvm}.
+     *
+     * @param mainClass the main class, which writes its results to the file named by its first argument
+     * @param args      the other arguments of the main class
+     * @return the results written by the main class
+     * @throws IOException          if the JVM could not be started or fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Properties fork(String mainClass, String... args) throws IOException, InterruptedException {
+        return new ForkedJvm(mainClass)
+                .classpath(System.getProperty("java.class.path") + File.pathSeparator + readClasspath())
+                .args(args)
+                .timeout(Long.getLong("harness.timeoutMinutes", DEFAULT_TIMEOUT_MINUTES), TimeUnit.MINUTES)
+                .run();
+    }
+
+    private String readClasspath() throws IOException {
+        File file = new File(System.getProperty("harness.classpathDir", "target/harness-classpath"),
+                artifactId + ".classpath");
+        if (!file.isFile()) {
+            throw new IOException("No classpath for " + this + " at " + file.getAbsolutePath()
+                    + ". Build this module with maven first");
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            StringBuilder classpath = new StringBuilder();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                classpath.append(line.trim());
+            }
+            return classpath.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return the harnesses named, case insensitively, in the comma separated system property "harnesses", or all
+     *         of them if it is not set
+     */
+    public static Set<Harness> selected() {
+        String names = System.getProperty("harnesses", "").trim();
+        if (names.length() == 0) {
+            return EnumSet.allOf(Harness.class);
+        }
+        Set<Harness> harnesses = EnumSet.noneOf(Harness.class);
+        for (String name : names.split("\\s*,\\s*")) {
+            harnesses.add(valueOf(name.toUpperCase()));
+        }
+        return harnesses;
+    }
+
+    /**
+     * Loads the {@link BeanProvider} of the harness on the classpath of the current JVM.
+     *
+     * @return the bean provider
+     * @throws IllegalStateException if there is not exactly one
+     */
+    public static BeanProvider loadBeanProvider() {
+        List<BeanProvider> beanProviders = new ArrayList<BeanProvider>();
+        Iterator<BeanProvider> iterator = ServiceLoader.load(BeanProvider.class).iterator();
+        while (iterator.hasNext()) {
+            beanProviders.add(iterator.next());
+        }
+        if (beanProviders.size() != 1) {
+            throw new IllegalStateException("Expected exactly one BeanProvider on the classpath but found "
+                    + beanProviders);
+        }
+        return beanProviders.get(0);
+    }
+}
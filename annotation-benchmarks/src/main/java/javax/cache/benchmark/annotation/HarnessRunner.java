@@ -0,0 +1,69 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH in a harness JVM started by {@link Harness#run(String, String...)}. JMH forks inherit the classpath, and
+ * so the harness, of this JVM.
+ *
+ * @since 1.0
+ */
+public final class HarnessRunner {
+
+    private HarnessRunner() {
+        //main class only
+    }
+
+    /**
+     * Runs the selected benchmarks and writes their scores.
+     *
+     * @param args the results file, a regular expression selecting the benchmarks, then JMH options
+     * @throws Exception if JMH fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Expected a results file and the benchmarks to include");
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(Arrays.copyOfRange(args, 2, args.length)))
+                .include(args[1])
+                .build();
+        List<HarnessScore> scores = new ArrayList<HarnessScore>();
+        for (RunResult result : new Runner(options).run()) {
+            scores.add(HarnessScore.of(result));
+        }
+
+        OutputStream out = new FileOutputStream(args[0]);
+        try {
+            HarnessScore.toProperties(scores).store(out, HarnessRunner.class.getName());
+        } finally {
+            out.close();
+        }
+    }
+}
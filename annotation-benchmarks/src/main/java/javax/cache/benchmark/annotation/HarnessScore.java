@@ -0,0 +1,169 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The score of one JMH benchmark run in a harness JVM, passed back to the comparison as {@link Properties}.
+ *
+ * @since 1.0
+ */
+public final class HarnessScore {
+
+    private static final String COUNT = "scores";
+
+    private final String benchmark;
+    private final String params;
+    private final double score;
+    private final double error;
+    private final String unit;
+
+    /**
+     * Constructor
+     *
+     * @param benchmark the name of the benchmark method
+     * @param params    the JMH parameters, as name=value separated by spaces
+     * @param score     the score
+     * @param error     the score error
+     * @param unit      the unit of the score
+     */
+    public HarnessScore(String benchmark, String params, double score, double error, String unit) {
+        this.benchmark = benchmark;
+        this.params = params;
+        this.score = score;
+        this.error = error;
+        this.unit = unit;
+    }
+
+    /**
+     * Creates the score of a JMH run.
+     *
+     * @param runResult the result of the run
+     * @return the score of the primary result
+     */
+    public static HarnessScore of(RunResult runResult) {
+        BenchmarkParams benchmarkParams = runResult.getParams();
+        String name = benchmarkParams.getBenchmark();
+        StringBuilder params = new StringBuilder();
+        for (String key : benchmarkParams.getParamsKeys()) {
+            if (params.length() > 0) {
+                params.append(' ');
+            }
+            params.append(key).append('=').append(benchmarkParams.getParam(key));
+        }
+        Result result = runResult.getPrimaryResult();
+        return new HarnessScore(name.substring(name.lastIndexOf('.') + 1), params.toString(), result.getScore(),
+                result.getScoreError(), result.getScoreUnit());
+    }
+
+    /**
+     * @return the name of the benchmark method
+     */
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    /**
+     * @return the JMH parameters, as name=value separated by spaces
+     */
+    public String getParams() {
+        return params;
+    }
+
+    /**
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return the score error, NaN if there were too few iterations to compute it
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * @return the unit of the score
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Finds a score.
+     *
+     * @param scores    the scores to search
+     * @param benchmark the name of the benchmark method
+     * @param params    the JMH parameters
+     * @return the score, or null if there is none
+     */
+    public static HarnessScore find(Collection<HarnessScore> scores, String benchmark, String params) {
+        for (HarnessScore harnessScore : scores) {
+            if (harnessScore.benchmark.equals(benchmark) && harnessScore.params.equals(params)) {
+                return harnessScore;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param scores the scores to write
+     * @return the scores as properties
+     */
+    public static Properties toProperties(List<HarnessScore> scores) {
+        Properties properties = new Properties();
+        properties.setProperty(COUNT, Integer.toString(scores.size()));
+        for (int i = 0; i < scores.size(); i++) {
+            HarnessScore harnessScore = scores.get(i);
+            String prefix = i + ".";
+            properties.setProperty(prefix + "benchmark", harnessScore.benchmark);
+            properties.setProperty(prefix + "params", harnessScore.params);
+            properties.setProperty(prefix + "score", Double.toString(harnessScore.score));
+            properties.setProperty(prefix + "error", Double.toString(harnessScore.error));
+            properties.setProperty(prefix + "unit", harnessScore.unit);
+        }
+        return properties;
+    }
+
+    /**
+     * @param properties scores written by {@link #toProperties(List)}
+     * @return the scores
+     */
+    public static List<HarnessScore> fromProperties(Properties properties) {
+        int count = Integer.parseInt(properties.getProperty(COUNT, "0"));
+        List<HarnessScore> scores = new ArrayList<HarnessScore>(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = i + ".";
+            scores.add(new HarnessScore(properties.getProperty(prefix + "benchmark"),
+                    properties.getProperty(prefix + "params"),
+                    Double.parseDouble(properties.getProperty(prefix + "score")),
+                    Double.parseDouble(properties.getProperty(prefix + "error")),
+                    properties.getProperty(prefix + "unit")));
+        }
+        return scores;
+    }
+}
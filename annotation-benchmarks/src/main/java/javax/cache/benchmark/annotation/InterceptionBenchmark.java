@@ -0,0 +1,105 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import domain.Blog;
+import manager.BlogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link BlogManager#getEntryCached(String)}, which is annotated with
+ * {@link javax.cache.annotation.CacheResult}, on a hit and on a miss, and of the same lookup without the annotation,
+ * {@link BlogManager#getEntryRaw(String)}, as the baseline.
+ * <p/>
+ * The bean comes from the {@link javax.cache.annotation.BeanProvider} of whichever harness is on the classpath, see
+ * {@link InterceptionComparison}, which runs this benchmark in every harness and reports the interceptor overhead.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterceptionBenchmark {
+
+    private static final String TITLE = "interception benchmark";
+
+    /**
+     * The BlogManager implementation to get from the harness
+     */
+    @Param({"manager.CacheNameOnEachMethodBlogManagerImpl"})
+    public String blogManagerClass;
+
+    private BlogManager blogManager;
+
+    /**
+     * Gets the bean, creates the entry and caches it
+     *
+     * @throws ClassNotFoundException if blogManagerClass is not found
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws ClassNotFoundException {
+        Class<? extends BlogManager> beanClass = Class.forName(blogManagerClass).asSubclass(BlogManager.class);
+        blogManager = Harness.loadBeanProvider().getBeanByType(beanClass);
+        blogManager.createEntry(new Blog(TITLE, "body"));
+        blogManager.getEntryCached(TITLE);
+    }
+
+    @Benchmark
+    public Blog raw() {
+        return blogManager.getEntryRaw(TITLE);
+    }
+
+    @Benchmark
+    public Blog cachedHit() {
+        return blogManager.getEntryCached(TITLE);
+    }
+
+    @Benchmark
+    public Blog cachedMiss(EmptyCache emptyCache) {
+        return blogManager.getEntryCached(TITLE);
+    }
+
+    /**
+     * Empties the cache before every call, so that each call is a miss which runs the method and caches the result.
+     * <p/>
+     * The cache is emptied with the annotated {@link BlogManager#clearCache()}, outside of the measured time. As
+     * with any per invocation setup the timestamps add some overhead, which is small next to a miss.
+     */
+    @State(Scope.Thread)
+    public static class EmptyCache {
+
+        /**
+         * Removes all entries of the cache
+         *
+         * @param benchmark the benchmark holding the bean
+         */
+        @Setup(Level.Invocation)
+        public void clearCache(InterceptionBenchmark benchmark) {
+            benchmark.blogManager.clearCache();
+        }
+    }
+}
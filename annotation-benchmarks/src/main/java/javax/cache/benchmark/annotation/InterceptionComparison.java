@@ -0,0 +1,58 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import javax.cache.benchmark.BenchmarkReport;
+import java.util.List;
+
+/**
+ * Runs {@link InterceptionBenchmark} in every harness, each in a JVM of its own, and reports the cost of the
+ * {@link javax.cache.annotation.CacheResult} interceptor of each next to each other.
+ * <p/>
+ * The overhead is the latency of a hit or miss less the latency of the raw method. The harnesses to run are
+ * selected with the system property "harnesses", for example "guice,cdi".
+ *
+ * @since 1.0
+ */
+public final class InterceptionComparison {
+
+    private InterceptionComparison() {
+        //main class only
+    }
+
+    /**
+     * Runs the benchmark in each harness and writes the "annotation-interception" report.
+     *
+     * @param args JMH command line options, which apply to every harness
+     * @throws Exception if a harness fails
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkReport report = new BenchmarkReport("annotation-interception",
+                "harness", "benchmark", "params", "ns/op", "error", "overhead ns/op", "x raw");
+        for (Harness harness : Harness.selected()) {
+            List<HarnessScore> scores = harness.run(InterceptionBenchmark.class.getName() + "\\.", args);
+            for (HarnessScore harnessScore : scores) {
+                HarnessScore raw = HarnessScore.find(scores, "raw", harnessScore.getParams());
+                double rawScore = raw == null ? Double.NaN : raw.getScore();
+                report.addRow(harness, harnessScore.getBenchmark(), harnessScore.getParams(),
+                        harnessScore.getScore(), harnessScore.getError(), harnessScore.getScore() - rawScore,
+                        harnessScore.getScore() / rawScore);
+            }
+        }
+        report.write();
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import manager.MultiParameterKeyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.cache.Cache;
+import javax.cache.Caching;
+import javax.cache.annotation.BeanProvider;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the keys generated for methods annotated with {@link javax.cache.annotation.CacheResult} taking 1 to
+ * 10 parameters: the latency of a hit, which builds a key, and of hashCode and equals on a generated key.
+ * <p/>
+ * The generated keys are taken from the cache used by {@link MultiParameterKeyManager}, which must belong to the
+ * default CacheManager. {@link KeyGenerationComparison} runs this benchmark in every harness and adds the bytes
+ * allocated by a hit.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyGenerationBenchmark {
+
+    /**
+     * The number of parameters of the annotated method
+     */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10"})
+    public int parameterCount;
+
+    private final String[] parameters = new String[MultiParameterKeyManager.MAX_PARAMETERS];
+    private MultiParameterKeyManager manager;
+    private Object key;
+    private Object equalKey;
+
+    /**
+     * Gets the bean and captures two equal generated keys, then caches the value which {@link #hit()} gets
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUp(Harness.loadBeanProvider());
+    }
+
+    /**
+     * @param beanProvider the bean provider to get the bean from
+     * @see #setUp()
+     */
+    void setUp(BeanProvider beanProvider) {
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = "parameter" + i;
+        }
+        manager = beanProvider.getBeanByType(MultiParameterKeyManager.class);
+        key = generateKey();
+        equalKey = generateKey();
+        if (key == equalKey || !key.equals(equalKey)) {
+            throw new IllegalStateException("Expected two equal keys but got " + key + " and " + equalKey);
+        }
+    }
+
+    @Benchmark
+    public Object hit() {
+        return call();
+    }
+
+    @Benchmark
+    public int keyHashCode() {
+        return key.hashCode();
+    }
+
+    @Benchmark
+    public boolean keyEquals() {
+        return key.equals(equalKey);
+    }
+
+    /**
+     * Calls the annotated method with {@link #parameterCount} parameters
+     *
+     * @return the value
+     */
+    Object call() {
+        String[] p = parameters;
+        Object value;
+        switch (parameterCount) {
+            case 1:
+                value = manager.get1(p[0]);
+                break;
+            case 2:
+                value = manager.get2(p[0], p[1]);
+                break;
+            case 3:
+                value = manager.get3(p[0], p[1], p[2]);
+                break;
+            case 4:
+                value = manager.get4(p[0], p[1], p[2], p[3]);
+                break;
+            case 5:
+                value = manager.get5(p[0], p[1], p[2], p[3], p[4]);
+                break;
+            case 6:
+                value = manager.get6(p[0], p[1], p[2], p[3], p[4], p[5]);
+                break;
+            case 7:
+                value = manager.get7(p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+                break;
+            case 8:
+                value = manager.get8(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7]);
+                break;
+            case 9:
+                value = manager.get9(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7], p[8]);
+                break;
+            case 10:
+                value = manager.get10(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7], p[8], p[9]);
+                break;
+            default:
+                throw new IllegalArgumentException("parameterCount must be from 1 to "
+                        + MultiParameterKeyManager.MAX_PARAMETERS + " but was " + parameterCount);
+        }
+        return value;
+    }
+
+    /**
+     * Empties the cache and calls the method once, so that the cache holds only the key generated by that call
+     */
+    private Object generateKey() {
+        manager.clearCache();
+        call();
+        Cache<Object, Object> cache = Caching.getCacheManager().getCache(MultiParameterKeyManager.CACHE_NAME);
+        if (cache == null) {
+            throw new IllegalStateException("The harness did not use the cache "
+                    + MultiParameterKeyManager.CACHE_NAME + " of the default CacheManager");
+        }
+        Iterator<Cache.Entry<Object, Object>> iterator = cache.iterator();
+        if (!iterator.hasNext()) {
+            throw new IllegalStateException("No key was cached in " + MultiParameterKeyManager.CACHE_NAME);
+        }
+        Cache.Entry<Object, Object> entry = iterator.next();
+        return entry.getKey();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import javax.cache.benchmark.BenchmarkReport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs {@link KeyGenerationBenchmark} and {@link KeyGenerationProbe} in every harness, each in a JVM of its own, and
+ * reports the cost of generating keys with 1 to 10 parameters in each next to each other.
+ * <p/>
+ * The harnesses to run are selected with the system property "harnesses", for example "guice,cdi".
+ *
+ * @since 1.0
+ */
+public final class KeyGenerationComparison {
+
+    private KeyGenerationComparison() {
+        //main class only
+    }
+
+    /**
+     * Runs the benchmark in each harness and writes the "annotation-key-generation" report.
+     *
+     * @param args JMH command line options, which apply to every harness
+     * @throws Exception if a harness fails
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkReport report = new BenchmarkReport("annotation-key-generation",
+                "harness", "parameters", "hit ns/op", "hashCode ns/op", "equals ns/op", "hit bytes/op");
+        for (Harness harness : Harness.selected()) {
+            List<HarnessScore> scores = harness.run(KeyGenerationBenchmark.class.getName() + "\\.", args);
+            List<String> parameterCounts = new ArrayList<String>();
+            for (HarnessScore harnessScore : scores) {
+                if (harnessScore.getBenchmark().equals("hit")) {
+                    parameterCounts.add(harnessScore.getParams().substring(harnessScore.getParams().indexOf('=') + 1));
+                }
+            }
+
+            String[] probeArgs = parameterCounts.toArray(new String[parameterCounts.size()]);
+            Properties allocation = harness.fork(KeyGenerationProbe.class.getName(), probeArgs);
+            for (String parameterCount : parameterCounts) {
+                String params = "parameterCount=" + parameterCount;
+                report.addRow(harness, parameterCount, score(scores, "hit", params),
+                        score(scores, "keyHashCode", params), score(scores, "keyEquals", params),
+                        allocation.getProperty("bytesPerCall." + parameterCount));
+            }
+        }
+        report.write();
+    }
+
+    private static double score(List<HarnessScore> scores, String benchmark, String params) {
+        HarnessScore harnessScore = HarnessScore.find(scores, benchmark, params);
+        return harnessScore == null ? Double.NaN : harnessScore.getScore();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import javax.cache.annotation.BeanProvider;
+import javax.cache.util.AllocationMeter;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Measures the bytes allocated by a hit on a method annotated with {@link javax.cache.annotation.CacheResult}, for
+ * each number of parameters, in a harness JVM started by {@link KeyGenerationComparison}.
+ * <p/>
+ * Allocation is measured apart from {@link KeyGenerationBenchmark}, on a single thread using
+ * {@link AllocationMeter}, so that reading the allocation counter does not distort the latency. The BeanProvider is
+ * loaded once, as some containers cannot be started twice in a JVM.
+ *
+ * @since 1.0
+ */
+public final class KeyGenerationProbe {
+
+    /**
+     * The calls made before measuring, to warm up the interceptor
+     */
+    static final int WARMUP_CALLS = 100000;
+
+    /**
+     * The calls measured
+     */
+    static final int MEASURED_CALLS = 100000;
+
+    private KeyGenerationProbe() {
+        //main class only
+    }
+
+    /**
+     * Writes "bytesPerCall.N" for each number of parameters N, or -1 if allocation cannot be measured.
+     *
+     * @param args the results file, then the numbers of parameters to measure
+     * @throws Exception if the results cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        BeanProvider beanProvider = Harness.loadBeanProvider();
+        Properties results = new Properties();
+        for (int i = 1; i < args.length; i++) {
+            KeyGenerationBenchmark benchmark = new KeyGenerationBenchmark();
+            benchmark.parameterCount = Integer.parseInt(args[i]);
+            benchmark.setUp(beanProvider);
+            results.setProperty("bytesPerCall." + args[i], Long.toString(measureBytesPerCall(benchmark)));
+        }
+
+        OutputStream out = new FileOutputStream(args[0]);
+        try {
+            results.store(out, KeyGenerationProbe.class.getName());
+        } finally {
+            out.close();
+        }
+    }
+
+    private static long measureBytesPerCall(KeyGenerationBenchmark benchmark) {
+        if (!AllocationMeter.isSupported()) {
+            return -1;
+        }
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            benchmark.hit();
+        }
+        long before = AllocationMeter.getAllocatedBytes();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            benchmark.hit();
+        }
+        return (AllocationMeter.getAllocatedBytes() - before) / MEASURED_CALLS;
+    }
+}
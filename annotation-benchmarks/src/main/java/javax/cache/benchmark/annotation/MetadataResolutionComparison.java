@@ -0,0 +1,118 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import manager.CacheNameOnEachMethodBlogManagerImpl;
+import manager.ClassLevelCacheConfigBlogManagerImpl;
+import manager.UsingDefaultCacheNameBlogManagerImpl;
+
+import javax.cache.benchmark.BenchmarkReport;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Runs {@link MetadataResolutionProbe} in every harness, each in a JVM of its own, and reports whether the cost of
+ * a hit stays flat once the interceptor has resolved the cache name and annotation metadata.
+ * <p/>
+ * {@link ClassLevelCacheConfigBlogManagerImpl} takes its cache name from {@link javax.cache.annotation.CacheDefaults}
+ * and {@link UsingDefaultCacheNameBlogManagerImpl} uses the generated default name. Both are compared with
+ * {@link CacheNameOnEachMethodBlogManagerImpl}, which names the cache on each method. A harness which resolves the
+ * metadata with reflection on every call shows extra bytes per call over that baseline, or a steady state which
+ * is not much faster than the first call. A bean is reported as not flat, and a warning is logged, if its last
+ * batch is more than twice as slow as the median batch or allocates more than the second batch.
+ * <p/>
+ * Each bean is called 10 million times, which can be changed with the system property "metadata.calls".
+ *
+ * @since 1.0
+ */
+public final class MetadataResolutionComparison {
+
+    private static final Logger LOG = Logger.getLogger(MetadataResolutionComparison.class.getName());
+
+    private static final int DEFAULT_CALLS = 10000000;
+
+    private static final String BASELINE = CacheNameOnEachMethodBlogManagerImpl.class.getName();
+
+    private static final String[] BEANS = {
+        BASELINE,
+        ClassLevelCacheConfigBlogManagerImpl.class.getName(),
+        UsingDefaultCacheNameBlogManagerImpl.class.getName()
+    };
+
+    private MetadataResolutionComparison() {
+        //main class only
+    }
+
+    /**
+     * Runs the probe in each harness and writes the "annotation-metadata" report.
+     *
+     * @param args not used
+     * @throws Exception if a harness fails
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkReport report = new BenchmarkReport("annotation-metadata", "harness", "bean", "first call us",
+                "first hit us", "median ns/call", "last ns/call", "bytes/call", "extra bytes/call", "flat");
+        String[] probeArgs = new String[BEANS.length + 1];
+        probeArgs[0] = Integer.toString(Integer.getInteger("metadata.calls", DEFAULT_CALLS));
+        System.arraycopy(BEANS, 0, probeArgs, 1, BEANS.length);
+        for (Harness harness : Harness.selected()) {
+            Properties results = harness.fork(MetadataResolutionProbe.class.getName(), probeArgs);
+            long baselineBytes = getLong(results, lastBatch(BASELINE) + "bytesPerCall");
+            for (String bean : BEANS) {
+                double[] nanosPerCall = new double[MetadataResolutionProbe.BATCHES];
+                for (int batch = 0; batch < nanosPerCall.length; batch++) {
+                    nanosPerCall[batch] = Double.parseDouble(getProperty(results, batch(bean, batch) + "nanosPerCall"));
+                }
+                double last = nanosPerCall[nanosPerCall.length - 1];
+                Arrays.sort(nanosPerCall);
+                double median = nanosPerCall[nanosPerCall.length / 2];
+                long bytes = getLong(results, lastBatch(bean) + "bytesPerCall");
+                boolean flat = last <= 2 * median && bytes <= getLong(results, batch(bean, 1) + "bytesPerCall");
+                if (!flat) {
+                    LOG.warning(harness + " " + bean + " does not reach a steady state: last batch " + last
+                            + " ns/call against a median of " + median + ", " + bytes + " bytes/call");
+                }
+                report.addRow(harness, bean.substring(bean.lastIndexOf('.') + 1),
+                        getLong(results, bean + ".firstCallNanos") / 1000.0,
+                        getLong(results, bean + ".firstHitNanos") / 1000.0,
+                        median, last, bytes, bytes - baselineBytes, flat ? "yes" : "no");
+            }
+        }
+        report.write();
+    }
+
+    private static String batch(String bean, int batch) {
+        return bean + ".batch." + batch + ".";
+    }
+
+    private static String lastBatch(String bean) {
+        return batch(bean, MetadataResolutionProbe.BATCHES - 1);
+    }
+
+    private static long getLong(Properties results, String key) {
+        return Long.parseLong(getProperty(results, key));
+    }
+
+    private static String getProperty(Properties results, String key) {
+        String value = results.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("The probe did not record " + key + ": " + results);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.annotation;
+
+import domain.Blog;
+import manager.BlogManager;
+
+import javax.cache.annotation.BeanProvider;
+import javax.cache.util.AllocationMeter;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Makes many hits on {@link BlogManager#getEntryCached(String)} of each bean in a harness JVM started by
+ * {@link MetadataResolutionComparison}, recording the time of the first call and the first hit, then the time and
+ * bytes allocated per call for each of {@link #BATCHES} batches of calls.
+ * <p/>
+ * An interceptor which resolves the cache name and annotation metadata once has a first call which is much slower than
+ * a hit, and the same time and allocation for every batch after the first.
+ *
+ * @since 1.0
+ */
+public final class MetadataResolutionProbe {
+
+    /**
+     * The number of batches the calls are split into
+     */
+    static final int BATCHES = 10;
+
+    private MetadataResolutionProbe() {
+        //main class only
+    }
+
+    /**
+     * Writes, for each bean class C, "C.firstCallNanos", "C.firstHitNanos", and "C.batch.N.nanosPerCall" and
+     * "C.batch.N.bytesPerCall" for each batch N. Bytes per call are -1 if allocation cannot be measured.
+     *
+     * @param args the results file, the number of calls to make to each bean, then the names of the BlogManager
+     *             classes to call
+     * @throws Exception if a class is not found or the results cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        int batchCalls = Integer.parseInt(args[1]) / BATCHES;
+        BeanProvider beanProvider = Harness.loadBeanProvider();
+        Properties results = new Properties();
+        for (int i = 2; i < args.length; i++) {
+            BlogManager blogManager = beanProvider.getBeanByType(Class.forName(args[i]).asSubclass(BlogManager.class));
+            probe(blogManager, args[i] + ".", batchCalls, results);
+        }
+
+        OutputStream out = new FileOutputStream(args[0]);
+        try {
+            results.store(out, MetadataResolutionProbe.class.getName());
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void probe(BlogManager blogManager, String prefix, int batchCalls, Properties results) {
+        String title = "metadata " + prefix;
+        blogManager.createEntry(new Blog(title, "body"));
+
+        long start = System.nanoTime();
+        blogManager.getEntryCached(title);
+        long firstHit = System.nanoTime();
+        blogManager.getEntryCached(title);
+        long end = System.nanoTime();
+        results.setProperty(prefix + "firstCallNanos", Long.toString(firstHit - start));
+        results.setProperty(prefix + "firstHitNanos", Long.toString(end - firstHit));
+
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long bytesBefore = AllocationMeter.getAllocatedBytes();
+            long batchStart = System.nanoTime();
+            for (int call = 0; call < batchCalls; call++) {
+                if (blogManager.getEntryCached(title) == null) {
+                    throw new IllegalStateException("Expected a hit for " + title);
+                }
+            }
+            long nanos = System.nanoTime() - batchStart;
+            long bytes = AllocationMeter.isSupported() ? (AllocationMeter.getAllocatedBytes() - bytesBefore) / batchCalls : -1;
+            results.setProperty(prefix + "batch." + batch + ".nanosPerCall", Double.toString(nanos / (double) batchCalls));
+            results.setProperty(prefix + "batch." + batch + ".bytesPerCall", Long.toString(bytes));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A table of results computed from several benchmark runs.
+ * <p/>
+ * The table is logged and written as CSV to the directory named by the system property
+ * "benchmark.reportDir", which the run-benchmarks profile sets to the build directory. It can also be rendered
+ * as HTML.
+ *
+ * @since 1.0
+ */
+public class BenchmarkReport {
+
+    private static final Logger LOG = Logger.getLogger(BenchmarkReport.class.getName());
+
+    private final String name;
+    private final String[] columns;
+    private final List<String[]> rows = new ArrayList<String[]>();
+
+    /**
+     * Constructor
+     *
+     * @param name    the report name, also used as the CSV file name
+     * @param columns the column headings
+     */
+    public BenchmarkReport(String name, String... columns) {
+        this.name = name;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Adds a row. Floating point values are formatted with two decimals.
+     *
+     * @param values one value per column
+     */
+    public void addRow(Object... values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("expected " + columns.length + " values but got " + values.length);
+        }
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            row[i] = format(values[i]);
+        }
+        rows.add(row);
+    }
+
+    /**
+     * Logs the report and writes it as CSV.
+     */
+    public void write() {
+        LOG.info(toTable());
+        File file = new File(System.getProperty("benchmark.reportDir", "."), name + ".csv");
+        try {
+            Writer writer = new FileWriter(file);
+            try {
+                writer.write(toCsvLine(columns));
+                for (String[] row : rows) {
+                    writer.write(toCsvLine(row));
+                }
+            } finally {
+                writer.close();
+            }
+            LOG.info("===== " + name + " written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to write report " + file, e);
+        }
+    }
+
+    /**
+     * @return the report as an HTML table, with the report name as its caption
+     */
+    public String toHtml() {
+        StringBuilder builder = new StringBuilder("<table>\n<caption>").append(escapeHtml(name)).append("</caption>\n");
+        appendHtmlRow(builder, "th", columns);
+        for (String[] row : rows) {
+            appendHtmlRow(builder, "td", row);
+        }
+        return builder.append("</table>\n").toString();
+    }
+
+    private String toTable() {
+        int[] widths = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            widths[i] = columns[i].length();
+            for (String[] row : rows) {
+                widths[i] = Math.max(widths[i], row[i].length());
+            }
+        }
+        StringBuilder builder = new StringBuilder("===== ").append(name).append('\n');
+        appendTableLine(builder, columns, widths);
+        for (String[] row : rows) {
+            appendTableLine(builder, row, widths);
+        }
+        return builder.toString();
+    }
+
+    private static void appendTableLine(StringBuilder builder, String[] values, int[] widths) {
+        for (int i = 0; i < values.length; i++) {
+            builder.append(String.format("%" + (widths[i] + 2) + "s", values[i]));
+        }
+        builder.append('\n');
+    }
+
+    private static void appendHtmlRow(StringBuilder builder, String cell, String[] values) {
+        builder.append("<tr>");
+        for (String value : values) {
+            builder.append('<').append(cell).append('>').append(escapeHtml(value)).append("</").append(cell).append('>');
+        }
+        builder.append("</tr>\n");
+    }
+
+    private static String escapeHtml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String toCsvLine(String[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(values[i].replace("\"", "\"\"")).append('"');
+        }
+        return builder.append('\n').toString();
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return String.format(Locale.ENGLISH, "%.2f", value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import javax.cache.Cache;
+import javax.cache.CacheBuilder;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * Benchmark state support base class.
+ * <p/>
+ * Holds a single cache created through {@link Caching#getCacheManager()}. Subclasses are JMH
+ * {@code @State} classes which call {@link #createCache()} and {@link #removeCache()} from their
+ * setup and teardown methods.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @since 1.0
+ */
+public abstract class CacheBenchmarkSupport<K, V> {
+
+    /**
+     * The cache manager the cache was created with
+     */
+    protected CacheManager cacheManager;
+
+    /**
+     * The cache under test
+     */
+    protected Cache<K, V> cache;
+
+    protected void createCache() {
+        cacheManager = getCacheManager();
+        cache = extraSetup(cacheManager.<K, V>createCacheBuilder(getCacheName())).build();
+    }
+
+    protected void removeCache() {
+        cacheManager.removeCache(getCacheName());
+    }
+
+    protected CacheManager getCacheManager() {
+        return Caching.getCacheManager();
+    }
+
+    protected String getCacheName() {
+        return getClass().getName();
+    }
+
+    protected <A, B> CacheBuilder<A, B> extraSetup(CacheBuilder<A, B> builder) {
+        return builder;
+    }
+
+    /**
+     * Creates the keys 0 to count - 1 up front, so that benchmarks do not measure boxing.
+     *
+     * @param count the number of keys
+     * @return the keys
+     */
+    protected static Integer[] createKeys(int count) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+}
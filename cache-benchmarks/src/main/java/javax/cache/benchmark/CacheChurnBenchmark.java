@@ -0,0 +1,169 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.util.HeapMeter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The cost of creating and removing short lived caches, as a multi tenant service does.
+ * <p/>
+ * Run with several threads, for example -t 8. {@link #createAndRemove(ThreadNames)} uses a unique name for
+ * every cache, while {@link #createAndRemoveSameName()} has every thread race to create and remove the same
+ * cache.
+ * <p/>
+ * Run {@link #main(String[])} to also report the heap still in use after creating and removing
+ * {@value #RETAINED_CACHE_COUNT} caches, per cache. The heap is only measured where {@link System#gc()} is honoured.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheChurnBenchmark {
+
+    /**
+     * The number of caches created and removed when measuring retained heap
+     */
+    public static final int RETAINED_CACHE_COUNT = 10000;
+
+    private static final String SHARED_NAME = "shared";
+    private static final int ENTRIES_PER_CACHE = 10;
+
+    private CacheManager cacheManager;
+
+    /**
+     * Gets the cache manager
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        cacheManager = Caching.getCacheManager(CacheChurnBenchmark.class.getName());
+    }
+
+    /**
+     * Shuts down the cache manager
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        cacheManager.shutdown();
+    }
+
+    /**
+     * A unique prefix per thread, so that threads never create the same cache
+     */
+    @State(Scope.Thread)
+    public static class ThreadNames {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private final String prefix = "thread" + THREADS.incrementAndGet() + "-";
+        private long count;
+
+        /**
+         * @return a name not used before
+         */
+        public String next() {
+            return prefix + count++;
+        }
+    }
+
+    @Benchmark
+    public Cache<Integer, Integer> createAndRemove(ThreadNames names) {
+        return createUseAndRemove(cacheManager, names.next());
+    }
+
+    @Benchmark
+    public Cache<Integer, Integer> createAndRemoveSameName() {
+        try {
+            return createUseAndRemove(cacheManager, SHARED_NAME);
+        } catch (CacheException e) {
+            //another thread created or removed the cache at the same time
+            return null;
+        }
+    }
+
+    private static Cache<Integer, Integer> createUseAndRemove(CacheManager cacheManager, String name) {
+        Cache<Integer, Integer> cache = cacheManager.<Integer, Integer>createCacheBuilder(name).build();
+        for (int i = 0; i < ENTRIES_PER_CACHE; i++) {
+            cache.put(i, i);
+        }
+        cacheManager.removeCache(name);
+        return cache;
+    }
+
+    /**
+     * Runs the benchmarks, then measures the heap retained by creating and removing caches, and reports both.
+     *
+     * @param args JMH command line options
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(CacheChurnBenchmark.class.getName())
+                .build();
+
+        BenchmarkReport report = new BenchmarkReport("churn", "operation", "threads", "us/op");
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            report.addRow(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getParams().getThreads(),
+                    result.getPrimaryResult().getScore());
+        }
+        report.write();
+
+        BenchmarkReport retained = new BenchmarkReport("churn-retained", "caches", "retained bytes", "bytes/cache");
+        if (HeapMeter.isExplicitGcHonoured()) {
+            long retainedBytes = measureRetainedHeap();
+            retained.addRow(RETAINED_CACHE_COUNT, retainedBytes, (double) retainedBytes / RETAINED_CACHE_COUNT);
+        } else {
+            retained.addRow(RETAINED_CACHE_COUNT, "SKIPPED, SYSTEM.GC() IS IGNORED BY THIS JVM", "-");
+        }
+        retained.write();
+    }
+
+    private static long measureRetainedHeap() {
+        CacheManager cacheManager = Caching.getCacheManager(CacheChurnBenchmark.class.getName() + ".retained");
+        try {
+            createUseAndRemove(cacheManager, "warmup");
+            long before = HeapMeter.getUsedHeapAfterGc();
+            for (int i = 0; i < RETAINED_CACHE_COUNT; i++) {
+                createUseAndRemove(cacheManager, "retained" + i);
+            }
+            return HeapMeter.getUsedHeapAfterGc() - before;
+        } finally {
+            cacheManager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the basic single key operations of Cache.
+ * <p/>
+ * The cache is populated with {@link #keyCount} entries before measurement, so get, containsKey
+ * and getAndPut always hit.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheOperationsBenchmark extends CacheBenchmarkSupport<Integer, String> {
+
+    /**
+     * The number of entries in the cache
+     */
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    private Integer[] keys;
+    private String value;
+
+    /**
+     * Creates and populates the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        createCache();
+        keys = createKeys(keyCount);
+        value = "value";
+        for (Integer key : keys) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Benchmark
+    public String get(KeySequence sequence) {
+        return cache.get(keys[sequence.next(keyCount)]);
+    }
+
+    @Benchmark
+    public void put(KeySequence sequence) {
+        cache.put(keys[sequence.next(keyCount)], value);
+    }
+
+    @Benchmark
+    public boolean containsKey(KeySequence sequence) {
+        return cache.containsKey(keys[sequence.next(keyCount)]);
+    }
+
+    /**
+     * Removes an existing mapping and puts it back, so that every remove finds an entry.
+     * Subtract {@link #put(KeySequence)} for the cost of the remove alone.
+     */
+    @Benchmark
+    public boolean remove(KeySequence sequence) {
+        Integer key = keys[sequence.next(keyCount)];
+        boolean removed = cache.remove(key);
+        cache.put(key, value);
+        return removed;
+    }
+
+    @Benchmark
+    public String getAndPut(KeySequence sequence) {
+        return cache.getAndPut(keys[sequence.next(keyCount)], value);
+    }
+
+    /**
+     * Per thread walk through the key space.
+     * <p/>
+     * Each thread starts at a random position and steps by a large prime so that concurrent
+     * threads do not hit the same keys in lock step.
+     */
+    @State(Scope.Thread)
+    public static class KeySequence {
+        private static final int STRIDE = 7919;
+
+        private int position;
+
+        /**
+         * Picks the random starting position
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            position = new Random().nextInt(Integer.MAX_VALUE);
+        }
+
+        /**
+         * Returns the next key index
+         *
+         * @param bound the number of keys
+         * @return an index between 0 and bound - 1
+         */
+        public int next(int bound) {
+            position = (position + STRIDE) & Integer.MAX_VALUE;
+            return position % bound;
+        }
+    }
+}
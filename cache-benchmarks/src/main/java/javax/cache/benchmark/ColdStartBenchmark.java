@@ -0,0 +1,115 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The start up cost of caching: the time from launching a JVM to the first {@link javax.cache.CacheBuilder#build()}
+ * and the first {@link javax.cache.Cache#get(Object)}, and the time and classes loaded for each step of the first
+ * use, including {@link javax.cache.Caching#isAnnotationsSupported()}.
+ * <p/>
+ * JMH cannot measure this, as its own infrastructure is loaded before a benchmark runs. Instead each run starts a
+ * new JVM with {@link ColdStartProbe}, once without and once with a first call to isAnnotationsSupported. The
+ * number of runs of each defaults to 10 and can be set with the system property "coldstart.runs". Options for the
+ * new JVMs, such as -Xshare:off, can be set with "coldstart.jvmArgs".
+ * <p/>
+ * The median, minimum and maximum of each measurement are reported, in milliseconds or classes.
+ *
+ * @since 1.0
+ */
+public final class ColdStartBenchmark {
+
+    private ColdStartBenchmark() {
+        //main class only
+    }
+
+    /**
+     * Runs the probe in new JVMs and reports the results.
+     *
+     * @param args not used
+     * @throws Exception if a JVM fails
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("coldstart.runs", 10);
+        String jvmArgs = System.getProperty("coldstart.jvmArgs", "").trim();
+
+        BenchmarkReport report = new BenchmarkReport("cold-start", "mode", "measurement", "median", "min", "max");
+        for (String mode : new String[] {"default", ColdStartProbe.ANNOTATIONS}) {
+            Map<String, List<Double>> measurements = new LinkedHashMap<String, List<Double>>();
+            for (int run = 0; run < runs; run++) {
+                ForkedJvm jvm = new ForkedJvm(ColdStartProbe.class.getName()).args(mode);
+                if (jvmArgs.length() > 0) {
+                    jvm.jvmArgs(jvmArgs.split("\\s+"));
+                }
+                Properties results = jvm.run();
+                for (Map.Entry<String, Double> entry : measure(results).entrySet()) {
+                    List<Double> values = measurements.get(entry.getKey());
+                    if (values == null) {
+                        values = new ArrayList<Double>();
+                        measurements.put(entry.getKey(), values);
+                    }
+                    values.add(entry.getValue());
+                }
+            }
+            for (Map.Entry<String, List<Double>> entry : measurements.entrySet()) {
+                List<Double> values = entry.getValue();
+                Collections.sort(values);
+                report.addRow(mode, entry.getKey(), values.get(values.size() / 2), values.get(0),
+                        values.get(values.size() - 1));
+            }
+        }
+        report.write();
+    }
+
+    /**
+     * Calculates the reported measurements from the results of one run
+     */
+    private static Map<String, Double> measure(Properties results) {
+        long launched = getLong(results, ForkedJvm.LAUNCHED_AT_MILLIS);
+        Map<String, Double> measurements = new LinkedHashMap<String, Double>();
+        measurements.put("launch to main ms", (double) (getLong(results, "mainEnteredAtMillis") - launched));
+        measurements.put("launch to first build ms", (double) (getLong(results, "firstBuildAtMillis") - launched));
+        measurements.put("launch to first get ms", (double) (getLong(results, "firstGetAtMillis") - launched));
+        measurements.put("JVM start to first get ms",
+                (double) (getLong(results, "firstGetAtMillis") - getLong(results, "jvmStartedAtMillis")));
+        long classes = 0;
+        for (String step : new String[] {"isAnnotationsSupported", "getCacheManager", "build", "put", "get"}) {
+            if (results.containsKey(step + "Nanos")) {
+                measurements.put(step + " ms", getLong(results, step + "Nanos") / (double) TimeUnit.MILLISECONDS.toNanos(1));
+                measurements.put(step + " classes", (double) getLong(results, step + "ClassesLoaded"));
+                classes += getLong(results, step + "ClassesLoaded");
+            }
+        }
+        measurements.put("total classes", (double) classes);
+        return measurements;
+    }
+
+    private static long getLong(Properties results, String key) {
+        String value = results.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("The probe did not record " + key + ": " + results);
+        }
+        return Long.parseLong(value);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.Properties;
+
+/**
+ * The first use of caching in a new JVM, run by {@link ColdStartBenchmark} in a {@link ForkedJvm}.
+ * <p/>
+ * Records the time taken by, and the classes loaded by, each step of the first use: optionally
+ * {@link Caching#isAnnotationsSupported()}, then {@link Caching#getCacheManager()}, building a cache, and the
+ * first put and get. The wall clock time of the first build and the first get is recorded too, so that the time
+ * from launching the JVM can be calculated.
+ *
+ * @since 1.0
+ */
+public final class ColdStartProbe {
+
+    /**
+     * The argument which makes the probe call {@link Caching#isAnnotationsSupported()} first
+     */
+    public static final String ANNOTATIONS = "annotations";
+
+    private final Properties results = new Properties();
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private long stepStartNanos;
+    private long stepStartClasses;
+
+    private ColdStartProbe() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        record("jvmStartedAtMillis", runtime.getStartTime());
+        record("mainEnteredAtMillis", System.currentTimeMillis());
+        record("classesLoadedBeforeMain", classLoading.getTotalLoadedClassCount());
+    }
+
+    /**
+     * Runs the probe.
+     *
+     * @param args the results file, optionally followed by {@value #ANNOTATIONS}
+     * @throws IOException if the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        ColdStartProbe probe = new ColdStartProbe();
+        probe.probe(args.length > 1 && ANNOTATIONS.equals(args[1]));
+        probe.write(args[0]);
+    }
+
+    private void probe(boolean annotations) {
+        if (annotations) {
+            startStep();
+            boolean supported = Caching.isAnnotationsSupported();
+            endStep("isAnnotationsSupported");
+            results.setProperty("annotationsSupported", Boolean.toString(supported));
+        }
+
+        startStep();
+        CacheManager cacheManager = Caching.getCacheManager();
+        endStep("getCacheManager");
+
+        startStep();
+        Cache<Integer, String> cache = cacheManager.<Integer, String>createCacheBuilder("coldStart").build();
+        endStep("build");
+        record("firstBuildAtMillis", System.currentTimeMillis());
+
+        startStep();
+        cache.put(1, "one");
+        endStep("put");
+
+        startStep();
+        cache.get(1);
+        endStep("get");
+        record("firstGetAtMillis", System.currentTimeMillis());
+    }
+
+    private void startStep() {
+        stepStartClasses = classLoading.getTotalLoadedClassCount();
+        stepStartNanos = System.nanoTime();
+    }
+
+    private void endStep(String step) {
+        long nanos = System.nanoTime() - stepStartNanos;
+        record(step + "Nanos", nanos);
+        record(step + "ClassesLoaded", classLoading.getTotalLoadedClassCount() - stepStartClasses);
+    }
+
+    private void record(String key, long value) {
+        results.setProperty(key, Long.toString(value));
+    }
+
+    private void write(String file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            results.store(out, ColdStartProbe.class.getName());
+        } finally {
+            out.close();
+        }
+    }
+}
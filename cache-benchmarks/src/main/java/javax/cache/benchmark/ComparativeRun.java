@@ -0,0 +1,315 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs the TCK and the benchmarks against several implementations and reports the results side by side.
+ * <p/>
+ * The implementations are given as groupId:artifactId:version, separated by commas, in the system property
+ * "providers". For each one, maven is run in a process of its own, first on implementation-tester and then on this
+ * module with the run-benchmarks profile, so that no two implementations share a classpath. Each must be available
+ * from a maven repository, and the other modules must have been installed.
+ * <p/>
+ * The arguments are those of JMH, and are passed on to the benchmark run of each implementation. The maven command
+ * defaults to mvn and can be set with the system property "comparative.mvn". Maven is run in the modules found in
+ * the directory named by "comparative.rootDir", by default the parent directory.
+ * <p/>
+ * The "comparative-conformance" and "comparative-benchmarks" reports are written as CSV, and together as
+ * comparative.html, to the directory named by "benchmark.reportDir". The maven output, JMH results and test timings
+ * of each implementation are kept in the comparative directory below it.
+ *
+ * @since 1.0
+ */
+public final class ComparativeRun {
+
+    private static final Logger LOG = Logger.getLogger(ComparativeRun.class.getName());
+
+    private final File rootDir = new File(System.getProperty("comparative.rootDir", "..")).getAbsoluteFile();
+    private final File reportDir = new File(System.getProperty("benchmark.reportDir", ".")).getAbsoluteFile();
+    private final String mvn = System.getProperty("comparative.mvn", "mvn");
+    private final String benchmarks;
+    private final String jmhArgs;
+
+    private ComparativeRun(String[] args) {
+        int first = args.length > 0 && !args[0].startsWith("-") ? 1 : 0;
+        benchmarks = first == 1 ? args[0] : "";
+        StringBuilder options = new StringBuilder();
+        for (int i = first; i < args.length; i++) {
+            if ("-rf".equals(args[i]) || "-rff".equals(args[i])) {
+                //each run writes its results where this class can read them
+                i++;
+            } else {
+                options.append(args[i]).append(' ');
+            }
+        }
+        jmhArgs = options.toString();
+    }
+
+    /**
+     * Runs the TCK and benchmarks against each implementation named in "providers" and writes the reports.
+     *
+     * @param args a regular expression selecting the benchmarks, optionally, then JMH command line options
+     * @throws Exception if maven cannot be run or the reports cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        List<Provider> providers = new ArrayList<Provider>();
+        for (String coordinates : System.getProperty("providers", "").split("[,\\s]+")) {
+            if (coordinates.length() > 0) {
+                providers.add(new Provider(coordinates));
+            }
+        }
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("Set providers to the groupId:artifactId:version of each implementation");
+        }
+        new ComparativeRun(args).run(providers);
+    }
+
+    private void run(List<Provider> providers) throws IOException, InterruptedException {
+        BenchmarkReport conformance = new BenchmarkReport("comparative-conformance",
+                "implementation", "result", "tests", "failures", "errors", "skipped", "seconds");
+        Map<String, Map<String, String>> scores = new TreeMap<String, Map<String, String>>();
+        for (Provider provider : providers) {
+            File outputDir = new File(new File(reportDir, "comparative"), provider.getDirectoryName());
+            if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+                throw new IOException("Could not create " + outputDir);
+            }
+            runConformance(provider, outputDir, conformance);
+            for (Map.Entry<String, String> scoreEntry : runBenchmarks(provider, outputDir).entrySet()) {
+                Map<String, String> byProvider = scores.get(scoreEntry.getKey());
+                if (byProvider == null) {
+                    byProvider = new LinkedHashMap<String, String>();
+                    scores.put(scoreEntry.getKey(), byProvider);
+                }
+                byProvider.put(provider.toString(), scoreEntry.getValue());
+            }
+        }
+
+        String[] columns = new String[providers.size() + 1];
+        columns[0] = "benchmark";
+        for (int i = 0; i < providers.size(); i++) {
+            columns[i + 1] = providers.get(i).toString();
+        }
+        BenchmarkReport benchmarkReport = new BenchmarkReport("comparative-benchmarks", columns);
+        for (Map.Entry<String, Map<String, String>> scoreEntry : scores.entrySet()) {
+            Object[] row = new Object[columns.length];
+            row[0] = scoreEntry.getKey();
+            for (int i = 1; i < columns.length; i++) {
+                String score = scoreEntry.getValue().get(columns[i]);
+                row[i] = score == null ? "-" : score;
+            }
+            benchmarkReport.addRow(row);
+        }
+
+        conformance.write();
+        benchmarkReport.write();
+        writeHtml(conformance, benchmarkReport);
+    }
+
+    private void runConformance(Provider provider, File outputDir, BenchmarkReport conformance)
+            throws IOException, InterruptedException {
+        File module = new File(rootDir, "implementation-tester");
+        long start = System.nanoTime();
+        int exitValue = runMaven(module, new File(outputDir, "conformance.log"), provider,
+                "-Dmaven.test.failure.ignore=true",
+                "-Dtck.timing.report=" + new File(outputDir, "tck-timings.csv").getAbsolutePath(),
+                "clean", "test");
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+        int[] totals = new int[4];
+        File[] reports = new File(module, "target/surefire-reports").listFiles();
+        boolean found = false;
+        for (File report : reports == null ? new File[0] : reports) {
+            if (report.getName().startsWith("TEST-") && report.getName().endsWith(".xml")) {
+                addTotals(report, totals);
+                found = true;
+            }
+        }
+        String result;
+        if (!found) {
+            result = "build failed (exit " + exitValue + ")";
+        } else {
+            result = totals[1] + totals[2] == 0 ? "pass" : "fail";
+        }
+        conformance.addRow(provider, result, totals[0], totals[1], totals[2], totals[3], seconds);
+    }
+
+    /**
+     * Adds the tests, failures, errors and skipped counts of a surefire XML report
+     */
+    private static void addTotals(File report, int[] totals) throws IOException {
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Element suite = builder.parse(report).getDocumentElement();
+            String[] attributes = {"tests", "failures", "errors", "skipped"};
+            for (int i = 0; i < attributes.length; i++) {
+                String value = suite.getAttribute(attributes[i]);
+                totals[i] += value.length() == 0 ? 0 : Integer.parseInt(value);
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Cannot parse " + report, e);
+        } catch (SAXException e) {
+            throw new IOException("Cannot parse " + report, e);
+        }
+    }
+
+    /**
+     * @return the score and unit of each benchmark, by benchmark name, mode and parameters
+     */
+    private Map<String, String> runBenchmarks(Provider provider, File outputDir) throws IOException, InterruptedException {
+        File results = new File(outputDir, "jmh-result.csv");
+        if (results.exists() && !results.delete()) {
+            throw new IOException("Could not delete " + results);
+        }
+        int exitValue = runMaven(new File(rootDir, "cache-benchmarks"), new File(outputDir, "benchmarks.log"), provider,
+                "-P", "run-benchmarks",
+                "-Dbenchmarks=" + benchmarks,
+                "-Djmh.args=" + jmhArgs + "-rf csv -rff " + results.getAbsolutePath(),
+                "verify");
+        Map<String, String> scores = new LinkedHashMap<String, String>();
+        if (!results.isFile()) {
+            LOG.warning("The benchmarks of " + provider + " failed with exit value " + exitValue + ", see "
+                    + new File(outputDir, "benchmarks.log"));
+            return scores;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(results));
+        try {
+            List<String> header = parseCsvLine(reader.readLine());
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                List<String> values = parseCsvLine(line);
+                StringBuilder name = new StringBuilder(values.get(0).replace(getClass().getPackage().getName() + ".", ""));
+                name.append(' ').append(values.get(1));
+                for (int i = 7; i < values.size(); i++) {
+                    name.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(values.get(i));
+                }
+                scores.put(name.toString(), values.get(4) + " " + values.get(6));
+            }
+        } finally {
+            reader.close();
+        }
+        return scores;
+    }
+
+    private int runMaven(File module, File log, Provider provider, String... args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(mvn);
+        command.add("-B");
+        command.add("-Dimplementation-groupId=" + provider.groupId);
+        command.add("-Dimplementation-artifactId=" + provider.artifactId);
+        command.add("-Dimplementation-version=" + provider.version);
+        command.addAll(Arrays.asList(args));
+        LOG.info("Running " + command + " in " + module + ", output in " + log);
+        Process process = new ProcessBuilder(command)
+                .directory(module)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        return process.waitFor();
+    }
+
+    private void writeHtml(BenchmarkReport... reports) throws IOException {
+        File file = new File(reportDir, "comparative.html");
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write("<!DOCTYPE html>\n<html>\n<head><title>javax.cache implementations compared</title></head>\n"
+                    + "<body>\n");
+            for (BenchmarkReport report : reports) {
+                writer.write(report.toHtml());
+            }
+            writer.write("</body>\n</html>\n");
+        } finally {
+            writer.close();
+        }
+        LOG.info("===== comparative report written to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Splits a line of a JMH CSV file, in which every value may be quoted
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<String>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * The maven coordinates of an implementation
+     */
+    private static final class Provider {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+
+        private Provider(String coordinates) {
+            String[] parts = coordinates.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected groupId:artifactId:version but got " + coordinates);
+            }
+            groupId = parts[0];
+            artifactId = parts[1];
+            version = parts[2];
+        }
+
+        private String getDirectoryName() {
+            return artifactId + "-" + version;
+        }
+
+        @Override
+        public String toString() {
+            return artifactId + ":" + version;
+        }
+    }
+}
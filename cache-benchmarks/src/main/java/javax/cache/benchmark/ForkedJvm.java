@@ -0,0 +1,181 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a main class in a new JVM and collects the results it writes.
+ * <p/>
+ * The main class is passed the path of a file as its first argument, followed by any other arguments. It writes
+ * its results to that file as {@link Properties}, which {@link #run()} returns along with
+ * {@value #LAUNCHED_AT_MILLIS}, the wall clock time just before the JVM was started. The output of the JVM is
+ * kept, and included in the exception if it fails.
+ *
+ * @since 1.0
+ */
+public class ForkedJvm {
+
+    /**
+     * The result key holding {@link System#currentTimeMillis()} just before the JVM was started
+     */
+    public static final String LAUNCHED_AT_MILLIS = "launchedAtMillis";
+
+    private static final long DEFAULT_TIMEOUT_SECONDS = 300;
+
+    private final String mainClass;
+    private String classpath = System.getProperty("java.class.path");
+    private List<String> jvmArgs = new ArrayList<String>();
+    private List<String> args = new ArrayList<String>();
+    private long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+
+    /**
+     * Constructor for a JVM with the classpath of this one
+     *
+     * @param mainClass the main class to run
+     */
+    public ForkedJvm(String mainClass) {
+        this.mainClass = mainClass;
+    }
+
+    /**
+     * @param classpath the classpath of the new JVM
+     * @return this
+     */
+    public ForkedJvm classpath(String classpath) {
+        this.classpath = classpath;
+        return this;
+    }
+
+    /**
+     * @param jvmArgs options for the new JVM, such as -Xmx512m
+     * @return this
+     */
+    public ForkedJvm jvmArgs(String... jvmArgs) {
+        this.jvmArgs.addAll(Arrays.asList(jvmArgs));
+        return this;
+    }
+
+    /**
+     * @param args arguments for the main class, after the results file
+     * @return this
+     */
+    public ForkedJvm args(String... args) {
+        this.args.addAll(Arrays.asList(args));
+        return this;
+    }
+
+    /**
+     * @param timeout how long to wait for the JVM to exit before destroying it
+     * @param unit    the unit of the timeout
+     * @return this
+     */
+    public ForkedJvm timeout(long timeout, TimeUnit unit) {
+        this.timeoutSeconds = unit.toSeconds(timeout);
+        return this;
+    }
+
+    /**
+     * Starts the JVM and waits for it to exit.
+     *
+     * @return the results written by the main class
+     * @throws IOException          if the JVM could not be started, fails or times out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Properties run() throws IOException, InterruptedException {
+        File resultsFile = File.createTempFile("forked-jvm", ".properties");
+        try {
+            List<String> command = new ArrayList<String>();
+            command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+            command.addAll(jvmArgs);
+            command.add("-classpath");
+            command.add(classpath);
+            command.add(mainClass);
+            command.add(resultsFile.getAbsolutePath());
+            command.addAll(args);
+
+            ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+            long launchedAtMillis = System.currentTimeMillis();
+            Process process = builder.start();
+            OutputCollector output = new OutputCollector(process.getInputStream());
+            output.start();
+            output.join(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+            if (output.isAlive()) {
+                process.destroy();
+                throw new IOException(mainClass + " did not exit within " + timeoutSeconds + "s. Output:\n" + output);
+            }
+            int exitValue = process.waitFor();
+            if (exitValue != 0) {
+                throw new IOException(mainClass + " exited with " + exitValue + ". Output:\n" + output);
+            }
+
+            Properties results = new Properties();
+            InputStream in = new FileInputStream(resultsFile);
+            try {
+                results.load(in);
+            } finally {
+                in.close();
+            }
+            results.setProperty(LAUNCHED_AT_MILLIS, Long.toString(launchedAtMillis));
+            return results;
+        } finally {
+            if (!resultsFile.delete()) {
+                resultsFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Reads the output of the JVM until it exits, so that it never blocks on a full pipe
+     */
+    private static final class OutputCollector extends Thread {
+        private final BufferedReader reader;
+        private final StringBuffer output = new StringBuffer();
+
+        private OutputCollector(InputStream in) {
+            super("forked-jvm-output");
+            setDaemon(true);
+            reader = new BufferedReader(new InputStreamReader(in));
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    output.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                output.append(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return output.toString();
+        }
+    }
+}
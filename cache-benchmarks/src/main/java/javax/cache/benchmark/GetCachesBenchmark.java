@@ -0,0 +1,126 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of {@link CacheManager#getCaches()}, which must return a detached collection, and
+ * {@link CacheManager#getCache(String)} with 10k and 100k caches, as a monitoring loop calls them.
+ * <p/>
+ * The quiet benchmarks run with no other activity. The churning group runs the same calls while two other
+ * threads create and remove caches, to show whether the snapshot blocks, or is blocked by, cache creation.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GetCachesBenchmark {
+
+    /**
+     * The number of caches in the cache manager
+     */
+    @Param({"10000", "100000"})
+    public int cacheCount;
+
+    private CacheManager cacheManager;
+    private String[] names;
+
+    /**
+     * Creates the caches
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        cacheManager = Caching.getCacheManager(GetCachesBenchmark.class.getName());
+        names = new String[cacheCount];
+        for (int i = 0; i < cacheCount; i++) {
+            names[i] = "cache" + i;
+            cacheManager.createCacheBuilder(names[i]).build();
+        }
+    }
+
+    /**
+     * Shuts down the cache manager
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public int getCachesQuiet() {
+        return iterateCaches();
+    }
+
+    @Benchmark
+    public Cache<Object, Object> getCacheQuiet(ScalingBenchmark.ThreadRandom random) {
+        return cacheManager.getCache(names[random.nextInt(cacheCount)]);
+    }
+
+    @Benchmark
+    @Group("churning")
+    @GroupThreads(1)
+    public int getCaches() {
+        return iterateCaches();
+    }
+
+    @Benchmark
+    @Group("churning")
+    @GroupThreads(1)
+    public Cache<Object, Object> getCache(ScalingBenchmark.ThreadRandom random) {
+        return cacheManager.getCache(names[random.nextInt(cacheCount)]);
+    }
+
+    @Benchmark
+    @Group("churning")
+    @GroupThreads(2)
+    public boolean createAndRemove(CacheChurnBenchmark.ThreadNames threadNames) {
+        String name = threadNames.next();
+        cacheManager.createCacheBuilder(name).build();
+        return cacheManager.removeCache(name);
+    }
+
+    /**
+     * Iterates over the caches, as a monitoring loop reading each cache would
+     */
+    private int iterateCaches() {
+        int count = 0;
+        for (Cache<?, ?> cache : cacheManager.getCaches()) {
+            if (cache.getStatus() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import domain.Identifier;
+import domain.Identifier2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of get and put when every key has the same hash code.
+ * <p/>
+ * {@link Identifier} and {@link Identifier2} always return 10 from hashCode. Strings built from
+ * "Aa" and "BB" blocks collide in the same way and are what an attacker would send to a cache keyed
+ * by user supplied strings.
+ * <p/>
+ * Run {@link #main(String[])} to compare latency across key counts. Latency which grows in proportion
+ * to the number of keys means lookups degrade linearly, which leaves the implementation open to hash
+ * flooding. If loading the keys takes longer than "collision.loadTimeoutSeconds" (default 120) the
+ * trial is abandoned, reported by JMH as failed and shown in the report as having no result.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashCollisionBenchmark extends CacheBenchmarkSupport<Object, String> {
+
+    /**
+     * Growth exponents above this are reported as linear degradation. A lookup which is logarithmic
+     * in the number of colliding keys stays well below it.
+     */
+    private static final double LINEAR_EXPONENT = 0.5;
+
+    /**
+     * The name of a {@link KeyType}
+     */
+    @Param({"IDENTIFIER", "IDENTIFIER2", "COLLIDING_STRING"})
+    public String keyType;
+
+    /**
+     * The number of colliding keys loaded into the cache
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int keyCount;
+
+    private Object[] keys;
+    private String value;
+
+    /**
+     * Creates the cache and loads the keys, giving up if loading is too slow
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        createCache();
+        keys = KeyType.valueOf(keyType).createKeys(keyCount);
+        value = "value";
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong("collision.loadTimeoutSeconds", 120L));
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            cache.put(keys[i], value);
+            if ((i & 0x3FF) == 0 && System.nanoTime() - start > timeoutNanos) {
+                throw new IllegalStateException("Loaded only " + i + " of " + keyCount + " " + keyType
+                        + " keys before timing out. Lookups degrade with colliding keys.");
+            }
+        }
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Override
+    protected <A, B> CacheBuilder<A, B> extraSetup(CacheBuilder<A, B> builder) {
+        return super.extraSetup(builder).setStoreByValue(KeyType.valueOf(keyType).storeByValue);
+    }
+
+    @Benchmark
+    public String get(CacheOperationsBenchmark.KeySequence sequence) {
+        return cache.get(keys[sequence.next(keyCount)]);
+    }
+
+    @Benchmark
+    public void put(CacheOperationsBenchmark.KeySequence sequence) {
+        cache.put(keys[sequence.next(keyCount)], value);
+    }
+
+    /**
+     * Runs the benchmarks and reports how latency grows with the number of colliding keys.
+     * <p/>
+     * The growth exponent e solves latency(n) / latency(smallest n) = (n / smallest n)^e, so 0 means
+     * constant time and 1 means linear. A key count with no result, usually because loading the keys
+     * timed out, is reported as such, since it is the worst case of all.
+     *
+     * @param args JMH command line options
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(HashCollisionBenchmark.class.getName())
+                .build();
+
+        Map<String, Map<Integer, Double>> latencies = new TreeMap<String, Map<Integer, Double>>();
+        Set<String> methods = new TreeSet<String>();
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            methods.add(method);
+            String key = result.getParams().getParam("keyType") + " " + method;
+            Map<Integer, Double> byCount = latencies.get(key);
+            if (byCount == null) {
+                byCount = new TreeMap<Integer, Double>();
+                latencies.put(key, byCount);
+            }
+            byCount.put(Integer.valueOf(result.getParams().getParam("keyCount")), result.getPrimaryResult().getScore());
+        }
+        addMissingKeyTypes(latencies, methods, getParamValues(options, "keyType"));
+
+        BenchmarkReport report = new BenchmarkReport("hash-collision",
+                "keys", "keyCount", "ns/op", "growth", "exponent", "verdict");
+        for (Map.Entry<String, Map<Integer, Double>> entry : latencies.entrySet()) {
+            Map.Entry<Integer, Double> smallestEntry = ((TreeMap<Integer, Double>) entry.getValue()).firstEntry();
+            for (String count : getParamValues(options, "keyCount")) {
+                Double latency = entry.getValue().get(Integer.valueOf(count));
+                if (latency == null) {
+                    report.addRow(entry.getKey(), count, "-", "-", "-", "NO RESULT, LOADING TIMED OUT OR FAILED");
+                    continue;
+                }
+                double growth = latency / smallestEntry.getValue();
+                double sizeRatio = Double.parseDouble(count) / smallestEntry.getKey();
+                double exponent = sizeRatio > 1 ? Math.log(growth) / Math.log(sizeRatio) : 0;
+                String verdict = exponent > LINEAR_EXPONENT ? "DEGRADES LINEARLY" : "OK";
+                report.addRow(entry.getKey(), count, latency, growth, exponent, verdict);
+            }
+        }
+        report.write();
+    }
+
+    /**
+     * Adds an empty entry for each key type and benchmark which has no results at all
+     */
+    private static void addMissingKeyTypes(Map<String, Map<Integer, Double>> latencies, Set<String> methods,
+                                           Collection<String> keyTypes) {
+        if (methods.isEmpty()) {
+            methods.addAll(Arrays.asList("get", "put"));
+        }
+        for (String type : keyTypes) {
+            for (String method : methods) {
+                if (!latencies.containsKey(type + " " + method)) {
+                    latencies.put(type + " " + method, new TreeMap<Integer, Double>());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the values of a parameter given on the command line, or else those of its {@link Param} annotation,
+     * in ascending order for numbers
+     */
+    private static Collection<String> getParamValues(Options options, String name) throws NoSuchFieldException {
+        Collection<String> values = options.getParameter(name).hasValue()
+                ? options.getParameter(name).get()
+                : Arrays.asList(HashCollisionBenchmark.class.getField(name).getAnnotation(Param.class).value());
+        List<String> sorted = new ArrayList<String>(values);
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                boolean numbers = first.matches("\\d+") && second.matches("\\d+");
+                return numbers ? Long.valueOf(first).compareTo(Long.valueOf(second)) : first.compareTo(second);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * The kinds of colliding key
+     */
+    public enum KeyType {
+        /**
+         * {@link Identifier}, which is Serializable so can be stored by value
+         */
+        IDENTIFIER(true) {
+            @Override
+            Object createKey(int index, int bits) {
+                return new Identifier("key" + index);
+            }
+        },
+
+        /**
+         * {@link Identifier2}, which is not Serializable so is stored by reference.
+         * This needs the optional STORE_BY_REFERENCE feature.
+         */
+        IDENTIFIER2(false) {
+            @Override
+            Object createKey(int index, int bits) {
+                return new Identifier2("key" + index);
+            }
+        },
+
+        /**
+         * Strings of "Aa" and "BB" blocks. "Aa" and "BB" have the same hash code, so all strings
+         * with the same number of blocks do too.
+         */
+        COLLIDING_STRING(true) {
+            @Override
+            Object createKey(int index, int bits) {
+                StringBuilder builder = new StringBuilder(bits * 2);
+                for (int bit = 0; bit < bits; bit++) {
+                    builder.append((index & (1 << bit)) == 0 ? "Aa" : "BB");
+                }
+                return builder.toString();
+            }
+        };
+
+        private final boolean storeByValue;
+
+        private KeyType(boolean storeByValue) {
+            this.storeByValue = storeByValue;
+        }
+
+        abstract Object createKey(int index, int bits);
+
+        /**
+         * Creates count distinct keys which all have the same hash code
+         *
+         * @param count the number of keys
+         * @return the keys
+         */
+        public Object[] createKeys(int count) {
+            int bits = 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1));
+            Object[] keys = new Object[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = createKey(i, bits);
+            }
+            return keys;
+        }
+    }
+}
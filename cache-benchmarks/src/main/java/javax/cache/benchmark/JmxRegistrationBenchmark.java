@@ -0,0 +1,208 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.statistics.MBeanServerRegistrationUtility;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of managing statistics MBeans for a cache manager with thousands of caches, all with statistics
+ * enabled: registering them all, disposing of them all, registering one more cache incrementally and polling
+ * every statistics attribute of every cache, as a monitoring agent would.
+ * <p/>
+ * A private MBeanServer is used, so that the platform MBeanServer of the benchmark JVM is unaffected.
+ *
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JmxRegistrationBenchmark {
+
+    /**
+     * A cache manager with cacheCount caches, created once per trial
+     */
+    @State(Scope.Benchmark)
+    public static class Caches {
+
+        /**
+         * The number of caches
+         */
+        @Param({"1000", "10000"})
+        public int cacheCount;
+
+        private CacheManager cacheManager;
+        private MBeanServer mBeanServer;
+        private List<Cache<Integer, Integer>> caches;
+
+        /**
+         * Creates the caches
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            cacheManager = Caching.getCacheManager(JmxRegistrationBenchmark.class.getName());
+            mBeanServer = MBeanServerFactory.newMBeanServer();
+            caches = new ArrayList<Cache<Integer, Integer>>(cacheCount);
+            for (int i = 0; i < cacheCount; i++) {
+                caches.add(cacheManager.<Integer, Integer>createCacheBuilder("cache" + i)
+                        .setStatisticsEnabled(true).build());
+            }
+        }
+
+        /**
+         * Shuts down the cache manager
+         */
+        @TearDown(Level.Trial)
+        public void teardown() {
+            cacheManager.shutdown();
+            MBeanServerFactory.releaseMBeanServer(mBeanServer);
+        }
+    }
+
+    /**
+     * Nothing registered before each invocation, everything disposed of afterwards
+     */
+    @State(Scope.Thread)
+    public static class Unregistered {
+        private MBeanServerRegistrationUtility utility;
+
+        /**
+         * Disposes of what the invocation registered
+         */
+        @TearDown(Level.Invocation)
+        public void teardown() {
+            if (utility != null) {
+                utility.dispose();
+                utility = null;
+            }
+        }
+    }
+
+    /**
+     * Every cache registered before each invocation
+     */
+    @State(Scope.Thread)
+    public static class Registered {
+        private CacheManager cacheManager;
+        private MBeanServerRegistrationUtility utility;
+        private Cache<Integer, Integer> extraCache;
+
+        /**
+         * Registers every cache
+         *
+         * @param caches the caches
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Caches caches) {
+            cacheManager = caches.cacheManager;
+            utility = new MBeanServerRegistrationUtility(cacheManager, caches.mBeanServer);
+            extraCache = cacheManager.<Integer, Integer>createCacheBuilder("extra")
+                    .setStatisticsEnabled(true).build();
+        }
+
+        /**
+         * Disposes of everything still registered
+         */
+        @TearDown(Level.Invocation)
+        public void teardown() {
+            utility.dispose();
+            cacheManager.removeCache("extra");
+        }
+    }
+
+    /**
+     * Every cache registered for the whole trial, with the names of the statistics attributes
+     */
+    @State(Scope.Benchmark)
+    public static class Polled {
+        private MBeanServerRegistrationUtility utility;
+        private List<ObjectName> objectNames;
+        private String[] attributeNames;
+
+        /**
+         * Registers every cache and looks up the attribute names
+         *
+         * @param caches the caches
+         * @throws Exception if the MBean info cannot be read
+         */
+        @Setup(Level.Trial)
+        public void setUp(Caches caches) throws Exception {
+            utility = new MBeanServerRegistrationUtility(caches.cacheManager, caches.mBeanServer);
+            objectNames = new ArrayList<ObjectName>(utility.getRegisteredObjectNames());
+            if (objectNames.isEmpty()) {
+                throw new IllegalStateException("The implementation registered no statistics MBeans");
+            }
+            MBeanAttributeInfo[] attributes = caches.mBeanServer.getMBeanInfo(objectNames.get(0)).getAttributes();
+            attributeNames = new String[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                attributeNames[i] = attributes[i].getName();
+            }
+        }
+
+        /**
+         * Disposes of the registrations
+         */
+        @TearDown(Level.Trial)
+        public void teardown() {
+            utility.dispose();
+        }
+    }
+
+    @Benchmark
+    public MBeanServerRegistrationUtility registerAll(Caches caches, Unregistered unregistered) {
+        unregistered.utility = new MBeanServerRegistrationUtility(caches.cacheManager, caches.mBeanServer);
+        return unregistered.utility;
+    }
+
+    @Benchmark
+    public void dispose(Registered registered) {
+        registered.utility.dispose();
+    }
+
+    @Benchmark
+    public ObjectName registerOneMore(Registered registered) {
+        return registered.utility.registerCacheStatistics(registered.extraCache);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void pollAllStatistics(Caches caches, Polled polled, Blackhole blackhole) throws Exception {
+        for (ObjectName objectName : polled.objectNames) {
+            blackhole.consume(caches.mBeanServer.getAttributes(objectName, polled.attributeNames));
+        }
+    }
+}
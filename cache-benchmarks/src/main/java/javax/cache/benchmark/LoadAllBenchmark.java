@@ -0,0 +1,280 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.cache.Cache;
+import javax.cache.CacheBuilder;
+import javax.cache.CacheLoaderTest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The time for {@link Cache#loadAll} to load 10 to 100k keys into an empty cache, until the returned
+ * Future completes.
+ * <p/>
+ * The loader simulates a backing store where each call costs loadLatencyMicros, however many keys it is
+ * given. An implementation which calls {@link javax.cache.CacheLoader#loadAll} with large batches, or which
+ * spreads the calls across threads, completes much sooner than one calling load once per key.
+ * <p/>
+ * Run {@link #main(String[])} to also report how the implementation called the loader: the number of load and
+ * loadAll calls, the batch sizes and how many threads the calls were made from.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadAllBenchmark extends CacheBenchmarkSupport<Integer, Integer> {
+
+    /**
+     * The number of keys loaded
+     */
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int keyCount;
+
+    /**
+     * The simulated latency of each call to the loader
+     */
+    @Param({"100"})
+    public long loadLatencyMicros;
+
+    private List<Integer> keys;
+    private RecordingCacheLoader loader;
+
+    /**
+     * Creates the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        loader = new RecordingCacheLoader(TimeUnit.MICROSECONDS.toNanos(loadLatencyMicros));
+        createCache();
+        keys = Arrays.asList(createKeys(keyCount));
+    }
+
+    /**
+     * Empties the cache, as loadAll only loads keys which are not already present
+     */
+    @Setup(Level.Invocation)
+    public void clear() {
+        cache.removeAll();
+        loader.reset();
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Override
+    protected <A, B> CacheBuilder<A, B> extraSetup(CacheBuilder<A, B> builder) {
+        @SuppressWarnings("unchecked")
+        CacheBuilder<Integer, Integer> integerBuilder = (CacheBuilder<Integer, Integer>) builder;
+        integerBuilder.setCacheLoader(loader);
+        return builder;
+    }
+
+    @Benchmark
+    public Map<Integer, ? extends Integer> loadAll() throws Exception {
+        return cache.loadAll(keys).get();
+    }
+
+    /**
+     * Runs the benchmark, then loads each key count once more to record how the implementation called
+     * the loader, and reports both.
+     *
+     * @param args JMH command line options
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(LoadAllBenchmark.class.getName())
+                .build();
+
+        BenchmarkReport report = new BenchmarkReport("load-all",
+                "keyCount", "loadLatencyMicros", "ms/op", "load calls", "loadAll calls",
+                "mean batch", "max batch", "threads", "max concurrent calls");
+        for (RunResult result : new Runner(options).run()) {
+            LoadAllBenchmark benchmark = new LoadAllBenchmark();
+            benchmark.keyCount = Integer.parseInt(result.getParams().getParam("keyCount"));
+            benchmark.loadLatencyMicros = Long.parseLong(result.getParams().getParam("loadLatencyMicros"));
+            benchmark.setUp();
+            try {
+                benchmark.clear();
+                benchmark.loadAll();
+                RecordingCacheLoader loader = benchmark.loader;
+                report.addRow(benchmark.keyCount, benchmark.loadLatencyMicros, result.getPrimaryResult().getScore(),
+                        loader.getLoadCalls(), loader.getLoadAllCalls(), loader.getMeanBatchSize(),
+                        loader.getMaxBatchSize(), loader.getThreadCount(), loader.getMaxConcurrentCalls());
+            } finally {
+                benchmark.teardown();
+            }
+        }
+        report.write();
+    }
+
+    /**
+     * A loader which adds the key as the value after a fixed latency per call, and records how it was called.
+     */
+    public static class RecordingCacheLoader extends CacheLoaderTest.SimpleCacheLoader<Integer> {
+
+        private final long latencyNanos;
+        private final AtomicInteger loadCalls = new AtomicInteger();
+        private final AtomicInteger loadAllCalls = new AtomicInteger();
+        private final AtomicLong loadAllKeys = new AtomicLong();
+        private final AtomicInteger maxBatchSize = new AtomicInteger();
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+        private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+        /**
+         * Constructor
+         *
+         * @param latencyNanos how long each call to the loader takes
+         */
+        public RecordingCacheLoader(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public Cache.Entry<Integer, Integer> load(Integer key) {
+            loadCalls.incrementAndGet();
+            enter();
+            try {
+                return super.load(key);
+            } finally {
+                exit();
+            }
+        }
+
+        @Override
+        public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) {
+            loadAllCalls.incrementAndGet();
+            enter();
+            try {
+                Map<Integer, Integer> map = super.loadAll(keys);
+                loadAllKeys.addAndGet(map.size());
+                updateMax(maxBatchSize, map.size());
+                return map;
+            } finally {
+                exit();
+            }
+        }
+
+        /**
+         * Clears the recorded calls
+         */
+        public void reset() {
+            loadCalls.set(0);
+            loadAllCalls.set(0);
+            loadAllKeys.set(0);
+            maxBatchSize.set(0);
+            maxConcurrentCalls.set(0);
+            threads.clear();
+        }
+
+        /**
+         * @return the number of calls to load
+         */
+        public int getLoadCalls() {
+            return loadCalls.get();
+        }
+
+        /**
+         * @return the number of calls to loadAll
+         */
+        public int getLoadAllCalls() {
+            return loadAllCalls.get();
+        }
+
+        /**
+         * @return the mean number of keys passed to loadAll, or 0 if it was not called
+         */
+        public double getMeanBatchSize() {
+            int calls = loadAllCalls.get();
+            return calls == 0 ? 0 : (double) loadAllKeys.get() / calls;
+        }
+
+        /**
+         * @return the largest number of keys passed to loadAll
+         */
+        public int getMaxBatchSize() {
+            return maxBatchSize.get();
+        }
+
+        /**
+         * @return the number of distinct threads the loader was called from
+         */
+        public int getThreadCount() {
+            return threads.size();
+        }
+
+        /**
+         * @return the most calls to the loader which were in progress at once
+         */
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls.get();
+        }
+
+        private void enter() {
+            threads.add(Thread.currentThread());
+            updateMax(maxConcurrentCalls, concurrentCalls.incrementAndGet());
+            long deadline = System.nanoTime() + latencyNanos;
+            for (long remaining = latencyNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+
+        private void exit() {
+            concurrentCalls.decrementAndGet();
+        }
+
+        private static void updateMax(AtomicInteger max, int value) {
+            int current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+    }
+}
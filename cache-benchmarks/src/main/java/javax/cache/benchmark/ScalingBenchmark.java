@@ -0,0 +1,234 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a mix of get, put, putIfAbsent and replace against one cache, measured at an
+ * increasing number of threads.
+ * <p/>
+ * Run {@link #main(String[])} to measure at 1, 2, 4 ... N threads and report the scaling efficiency
+ * at each step. N defaults to the number of processors and can be set with the system property
+ * "threads.max". An implementation which holds a global lock on the hot path shows an efficiency
+ * which falls towards 1/threads.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScalingBenchmark extends CacheBenchmarkSupport<Integer, String> {
+
+    /**
+     * The number of entries in the cache
+     */
+    @Param({"10000"})
+    public int keyCount;
+
+    /**
+     * The name of an {@link OperationMix}
+     */
+    @Param({"READ_MOSTLY", "BALANCED"})
+    public String mix;
+
+    private Integer[] keys;
+    private String[] values;
+    private OperationMix operationMix;
+
+    /**
+     * Creates and populates the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        createCache();
+        operationMix = OperationMix.valueOf(mix);
+        keys = createKeys(keyCount);
+        values = new String[] {"value0", "value1"};
+        for (Integer key : keys) {
+            cache.put(key, values[0]);
+        }
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Benchmark
+    public Object mixed(ThreadRandom random) {
+        Integer key = keys[random.nextInt(keyCount)];
+        String value = values[random.nextInt(2)];
+        int percent = random.nextInt(100);
+        if (percent < operationMix.getPercent) {
+            return cache.get(key);
+        } else if (percent < operationMix.putPercentile) {
+            cache.put(key, value);
+            return value;
+        } else if (percent < operationMix.putIfAbsentPercentile) {
+            return cache.putIfAbsent(key, value);
+        } else {
+            return cache.replace(key, value);
+        }
+    }
+
+    /**
+     * Runs {@link #mixed(ThreadRandom)} at 1, 2, 4 ... N threads and reports ops/sec, speedup and
+     * scaling efficiency, where efficiency is throughput(n) / (n * throughput(1)).
+     *
+     * @param args JMH command line options, which apply to every run
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options commandLine = new CommandLineOptions(args);
+        int maxThreads = Integer.getInteger("threads.max", Runtime.getRuntime().availableProcessors());
+
+        Map<String, Map<Integer, Double>> throughputs = new TreeMap<String, Map<Integer, Double>>();
+        for (int threads : threadCounts(maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(ScalingBenchmark.class.getName() + ".mixed")
+                    .threads(threads)
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                String key = "mix=" + result.getParams().getParam("mix")
+                        + " keyCount=" + result.getParams().getParam("keyCount");
+                Map<Integer, Double> byThreads = throughputs.get(key);
+                if (byThreads == null) {
+                    byThreads = new TreeMap<Integer, Double>();
+                    throughputs.put(key, byThreads);
+                }
+                byThreads.put(threads, result.getPrimaryResult().getScore());
+            }
+        }
+
+        BenchmarkReport report = new BenchmarkReport("scaling", "params", "threads", "ops/sec", "speedup", "efficiency");
+        for (Map.Entry<String, Map<Integer, Double>> entry : throughputs.entrySet()) {
+            Double single = entry.getValue().get(1);
+            for (Map.Entry<Integer, Double> stepEntry : entry.getValue().entrySet()) {
+                double speedup = stepEntry.getValue() / single;
+                report.addRow(entry.getKey(), stepEntry.getKey(), stepEntry.getValue(), speedup, speedup / stepEntry.getKey());
+            }
+        }
+        report.write();
+    }
+
+    /**
+     * @param maxThreads the largest thread count
+     * @return 1, 2, 4 ... up to and including maxThreads
+     */
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * The proportions of each operation, in percent.
+     */
+    public enum OperationMix {
+        /**
+         * 90% get, the rest split between the writes
+         */
+        READ_MOSTLY(90, 4, 3, 3),
+
+        /**
+         * An equal share of each operation
+         */
+        BALANCED(25, 25, 25, 25);
+
+        private final int getPercent;
+        private final int putPercentile;
+        private final int putIfAbsentPercentile;
+
+        private OperationMix(int get, int put, int putIfAbsent, int replace) {
+            if (get + put + putIfAbsent + replace != 100) {
+                throw new IllegalArgumentException("percentages must add up to 100");
+            }
+            this.getPercent = get;
+            this.putPercentile = get + put;
+            this.putIfAbsentPercentile = get + put + putIfAbsent;
+        }
+    }
+
+    /**
+     * Per thread random numbers, so that threads do not contend on a shared {@link Random}.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private long seed;
+
+        /**
+         * Seeds the generator
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            seed = new Random().nextLong() | 1L;
+        }
+
+        /**
+         * Returns a pseudo random number using an xorshift generator.
+         *
+         * @param bound the upper bound, exclusive
+         * @return a number between 0 and bound - 1
+         */
+        public int nextInt(int bound) {
+            return (int) ((next() >>> 1) % bound);
+        }
+
+        /**
+         * @return a pseudo random number between 0 inclusive and 1 exclusive
+         */
+        public double nextDouble() {
+            return (next() >>> 11) * 0x1.0p-53;
+        }
+
+        private long next() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return seed;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.cache.CacheBuilder;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of statistics on the hot path: get and put throughput with statistics enabled and disabled.
+ * <p/>
+ * Run {@link #main(String[])} to measure both at 1, 2, 4 ... N threads and report the overhead at each
+ * step. N defaults to the number of processors and can be set with the system property "threads.max".
+ * Counters kept behind a shared lock show an overhead which grows with the number of threads.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StatisticsBenchmark extends CacheBenchmarkSupport<Integer, String> {
+
+    private static final int KEY_COUNT = 10000;
+
+    /**
+     * Whether the cache keeps statistics
+     */
+    @Param({"true", "false"})
+    public boolean statisticsEnabled;
+
+    private Integer[] keys;
+
+    /**
+     * Creates and populates the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        createCache();
+        keys = createKeys(KEY_COUNT);
+        for (Integer key : keys) {
+            cache.put(key, "value");
+        }
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Override
+    protected <A, B> CacheBuilder<A, B> extraSetup(CacheBuilder<A, B> builder) {
+        return super.extraSetup(builder).setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @Benchmark
+    public String get(ScalingBenchmark.ThreadRandom random) {
+        return cache.get(keys[random.nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    public void put(ScalingBenchmark.ThreadRandom random) {
+        cache.put(keys[random.nextInt(KEY_COUNT)], "value");
+    }
+
+    /**
+     * Runs the benchmarks with and without statistics at 1, 2, 4 ... N threads and reports the overhead,
+     * where overhead is 1 - throughput(enabled) / throughput(disabled).
+     *
+     * @param args JMH command line options, which apply to every run
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options commandLine = new CommandLineOptions(args);
+        int maxThreads = Integer.getInteger("threads.max", Runtime.getRuntime().availableProcessors());
+
+        BenchmarkReport report = new BenchmarkReport("statistics",
+                "operation", "threads", "ops/sec enabled", "ops/sec disabled", "overhead %");
+        for (int threads : ScalingBenchmark.threadCounts(maxThreads)) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(StatisticsBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            Map<String, Double> enabled = new TreeMap<String, Double>();
+            Map<String, Double> disabled = new TreeMap<String, Double>();
+            for (RunResult result : new Runner(options).run()) {
+                String benchmark = result.getParams().getBenchmark();
+                String operation = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+                boolean statistics = Boolean.valueOf(result.getParams().getParam("statisticsEnabled"));
+                (statistics ? enabled : disabled).put(operation, result.getPrimaryResult().getScore());
+            }
+            Set<String> operations = new TreeSet<String>(enabled.keySet());
+            operations.addAll(disabled.keySet());
+            for (String operation : operations) {
+                Double with = enabled.get(operation);
+                Double without = disabled.get(operation);
+                //only one setting was run when statisticsEnabled is given with -p
+                if (with == null || without == null) {
+                    report.addRow(operation, threads, with == null ? "-" : with, without == null ? "-" : without, "-");
+                } else {
+                    report.addRow(operation, threads, with, without, 100 * (1 - with / without));
+                }
+            }
+        }
+        report.write();
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark;
+
+import domain.Blog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.cache.CacheBuilder;
+import javax.cache.Caching;
+import javax.cache.OptionalFeature;
+import javax.cache.util.AllocationMeter;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of store by value compared with store by reference, for values of different sizes.
+ * <p/>
+ * Run {@link #main(String[])} to report latency alongside the bytes allocated per operation. Allocation is
+ * measured separately from latency, on a single thread using {@link AllocationMeter}, so that reading
+ * the allocation counter does not distort the latency.
+ * <p/>
+ * Store by reference is optional. Trials with storeByValue=false fail if the implementation does
+ * not support it.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StoreByValueBenchmark extends CacheBenchmarkSupport<Integer, Object> {
+
+    private static final int KEY_COUNT = 1000;
+    private static final int ALLOCATION_WARMUP_OPERATIONS = 100000;
+    private static final int ALLOCATION_MEASURED_OPERATIONS = 100000;
+
+    /**
+     * Whether the cache stores by value
+     */
+    @Param({"true", "false"})
+    public boolean storeByValue;
+
+    /**
+     * The name of a {@link ValueSize}
+     */
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public String valueSize;
+
+    private Integer[] keys;
+    private Object value;
+
+    /**
+     * Creates and populates the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!storeByValue && !Caching.isSupported(OptionalFeature.STORE_BY_REFERENCE)) {
+            throw new IllegalStateException("The implementation does not support store by reference");
+        }
+        createCache();
+        keys = createKeys(KEY_COUNT);
+        value = ValueSize.valueOf(valueSize).createValue();
+        for (Integer key : keys) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Override
+    protected <A, B> CacheBuilder<A, B> extraSetup(CacheBuilder<A, B> builder) {
+        return super.extraSetup(builder).setStoreByValue(storeByValue);
+    }
+
+    @Benchmark
+    public Object get(CacheOperationsBenchmark.KeySequence sequence) {
+        return cache.get(keys[sequence.next(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    public void put(CacheOperationsBenchmark.KeySequence sequence) {
+        cache.put(keys[sequence.next(KEY_COUNT)], value);
+    }
+
+    @Benchmark
+    public Object getAndPut(CacheOperationsBenchmark.KeySequence sequence) {
+        return cache.getAndPut(keys[sequence.next(KEY_COUNT)], value);
+    }
+
+    /**
+     * Runs the benchmarks, then measures the bytes allocated per operation for each combination
+     * and reports both.
+     *
+     * @param args JMH command line options
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(StoreByValueBenchmark.class.getName())
+                .build();
+
+        BenchmarkReport report = new BenchmarkReport("store-by-value",
+                "operation", "storeByValue", "valueSize", "ns/op", "bytes/op");
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            String operation = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            boolean byValue = Boolean.valueOf(result.getParams().getParam("storeByValue"));
+            String size = result.getParams().getParam("valueSize");
+            report.addRow(operation, byValue, size, result.getPrimaryResult().getScore(),
+                    measureAllocation(operation, byValue, size));
+        }
+        report.write();
+    }
+
+    /**
+     * Measures the bytes allocated per operation on the current thread.
+     *
+     * @return bytes per operation, or -1 if allocation cannot be measured on this JVM
+     */
+    private static long measureAllocation(String operation, boolean storeByValue, String valueSize) {
+        if (!AllocationMeter.isSupported()) {
+            return -1;
+        }
+        StoreByValueBenchmark benchmark = new StoreByValueBenchmark();
+        benchmark.storeByValue = storeByValue;
+        benchmark.valueSize = valueSize;
+        benchmark.setUp();
+        try {
+            CacheOperationsBenchmark.KeySequence sequence = new CacheOperationsBenchmark.KeySequence();
+            sequence.setUp();
+            benchmark.run(operation, sequence, ALLOCATION_WARMUP_OPERATIONS);
+            long before = AllocationMeter.getAllocatedBytes();
+            benchmark.run(operation, sequence, ALLOCATION_MEASURED_OPERATIONS);
+            return (AllocationMeter.getAllocatedBytes() - before) / ALLOCATION_MEASURED_OPERATIONS;
+        } finally {
+            benchmark.teardown();
+        }
+    }
+
+    private void run(String operation, CacheOperationsBenchmark.KeySequence sequence, int count) {
+        for (int i = 0; i < count; i++) {
+            if ("get".equals(operation)) {
+                get(sequence);
+            } else if ("put".equals(operation)) {
+                put(sequence);
+            } else {
+                getAndPut(sequence);
+            }
+        }
+    }
+
+    /**
+     * The values stored. All are Serializable, so they can be stored by value.
+     */
+    public enum ValueSize {
+        /**
+         * A {@link SmallValue}, a few hundred bytes serialized
+         */
+        SMALL {
+            @Override
+            Object createValue() {
+                return new SmallValue("Rover", "tan", 20, 90, 55, true);
+            }
+        },
+
+        /**
+         * A {@link Blog} with a 1 KB body
+         */
+        MEDIUM {
+            @Override
+            Object createValue() {
+                return createBlog(1024);
+            }
+        },
+
+        /**
+         * A {@link Blog} with a 16 KB body
+         */
+        LARGE {
+            @Override
+            Object createValue() {
+                return createBlog(16 * 1024);
+            }
+        };
+
+        abstract Object createValue();
+
+        private static Blog createBlog(int bodyLength) {
+            char[] body = new char[bodyLength];
+            Arrays.fill(body, 'x');
+            return new Blog("title", new String(body));
+        }
+    }
+
+    /**
+     * A small value with a few fields, shaped like a domain object rather than a boxed primitive
+     */
+    public static final class SmallValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String color;
+        private final int weightInKg;
+        private final int lengthInCm;
+        private final int heightInCm;
+        private final boolean neutered;
+
+        SmallValue(String name, String color, int weightInKg, int lengthInCm, int heightInCm, boolean neutered) {
+            this.name = name;
+            this.color = color;
+            this.weightInKg = weightInKg;
+            this.lengthInCm = lengthInCm;
+            this.heightInCm = heightInCm;
+            this.neutered = neutered;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SmallValue other = (SmallValue) o;
+            if (weightInKg != other.weightInKg || lengthInCm != other.lengthInCm || heightInCm != other.heightInCm) {
+                return false;
+            }
+            return neutered == other.neutered && name.equals(other.name) && color.equals(other.color);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + color.hashCode();
+            result = 31 * result + weightInKg;
+            result = 31 * result + lengthInCm;
+            result = 31 * result + heightInCm;
+            return 31 * result + (neutered ? 1 : 0);
+        }
+    }
+}
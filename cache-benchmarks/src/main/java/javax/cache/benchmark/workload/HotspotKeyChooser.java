@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+
+/**
+ * Chooses keys from a small hot set for most operations, and from the rest of the keys otherwise. Keys within
+ * each set are chosen uniformly.
+ *
+ * @since 1.0
+ */
+public class HotspotKeyChooser extends KeyChooser {
+
+    /**
+     * The fraction of the keys in the hot set used by YCSB
+     */
+    public static final double DEFAULT_HOT_KEY_FRACTION = 0.2;
+
+    /**
+     * The fraction of the operations on the hot set used by YCSB
+     */
+    public static final double DEFAULT_HOT_OPERATION_FRACTION = 0.8;
+
+    private final int keyCount;
+    private final int hotKeyCount;
+    private final double hotOperationFraction;
+
+    /**
+     * Constructor where 20% of the keys get 80% of the operations
+     *
+     * @param keyCount the number of keys
+     */
+    public HotspotKeyChooser(int keyCount) {
+        this(keyCount, DEFAULT_HOT_KEY_FRACTION, DEFAULT_HOT_OPERATION_FRACTION);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param keyCount             the number of keys
+     * @param hotKeyFraction       the fraction of keys which are hot
+     * @param hotOperationFraction the fraction of operations which use a hot key
+     */
+    public HotspotKeyChooser(int keyCount, double hotKeyFraction, double hotOperationFraction) {
+        this.keyCount = keyCount;
+        this.hotKeyCount = Math.max(1, Math.min(keyCount - 1, (int) (keyCount * hotKeyFraction)));
+        this.hotOperationFraction = hotOperationFraction;
+    }
+
+    @Override
+    public int nextKey(ScalingBenchmark.ThreadRandom random) {
+        if (random.nextDouble() < hotOperationFraction) {
+            return random.nextInt(hotKeyCount);
+        }
+        return hotKeyCount + random.nextInt(keyCount - hotKeyCount);
+    }
+}
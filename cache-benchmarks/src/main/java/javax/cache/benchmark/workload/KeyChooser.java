@@ -0,0 +1,36 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+
+/**
+ * Chooses the key of the next operation from the keys 0 to keyCount - 1.
+ * <p/>
+ * Choosers hold no per thread state, so a single chooser can be shared by all threads, each passing its own
+ * random number generator.
+ *
+ * @since 1.0
+ */
+public abstract class KeyChooser {
+
+    /**
+     * @param random the random numbers of the calling thread
+     * @return the next key
+     */
+    public abstract int nextKey(ScalingBenchmark.ThreadRandom random);
+}
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The distributions keys can be chosen with.
+ *
+ * @since 1.0
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key equally
+     */
+    UNIFORM {
+        @Override
+        public KeyChooser createChooser(AtomicInteger keyCount) {
+            return new UniformKeyChooser(keyCount);
+        }
+    },
+
+    /**
+     * A few popular keys, scattered across the key space
+     */
+    ZIPFIAN {
+        @Override
+        public KeyChooser createChooser(AtomicInteger keyCount) {
+            return new ZipfianKeyChooser(keyCount.get());
+        }
+    },
+
+    /**
+     * The most recently inserted keys
+     */
+    LATEST {
+        @Override
+        public KeyChooser createChooser(AtomicInteger keyCount) {
+            return new LatestKeyChooser(keyCount);
+        }
+    },
+
+    /**
+     * 80% of operations on 20% of the keys
+     */
+    HOTSPOT {
+        @Override
+        public KeyChooser createChooser(AtomicInteger keyCount) {
+            return new HotspotKeyChooser(keyCount.get());
+        }
+    };
+
+    /**
+     * @param keyCount the number of keys, which grows as keys are inserted
+     * @return a chooser for this distribution
+     */
+    public abstract KeyChooser createChooser(AtomicInteger keyCount);
+}
@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the most recently inserted keys most often, with a Zipfian distribution over how recently they were
+ * inserted. This models reading recent items such as status updates.
+ *
+ * @since 1.0
+ */
+public class LatestKeyChooser extends KeyChooser {
+
+    private final AtomicInteger keyCount;
+    private final ZipfianKeyChooser recency;
+
+    /**
+     * Constructor
+     *
+     * @param keyCount the number of keys, which grows as keys are inserted. Keys are inserted in order, so the
+     *                 latest is keyCount - 1
+     */
+    public LatestKeyChooser(AtomicInteger keyCount) {
+        this.keyCount = keyCount;
+        this.recency = new ZipfianKeyChooser(keyCount.get(), ZipfianKeyChooser.DEFAULT_THETA, false);
+    }
+
+    @Override
+    public int nextKey(ScalingBenchmark.ThreadRandom random) {
+        int latest = keyCount.get() - 1;
+        return Math.max(0, latest - recency.nextRank(random));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses every key with equal probability, including keys inserted during the run.
+ *
+ * @since 1.0
+ */
+public class UniformKeyChooser extends KeyChooser {
+
+    private final AtomicInteger keyCount;
+
+    /**
+     * Constructor
+     *
+     * @param keyCount the number of keys, which grows as keys are inserted
+     */
+    public UniformKeyChooser(AtomicInteger keyCount) {
+        this.keyCount = keyCount;
+    }
+
+    @Override
+    public int nextKey(ScalingBenchmark.ThreadRandom random) {
+        return random.nextInt(keyCount.get());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.cache.Cache;
+import javax.cache.benchmark.CacheBenchmarkSupport;
+import javax.cache.benchmark.ScalingBenchmark;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of the YCSB workloads A, B, E and F against a cache created with
+ * {@link javax.cache.CacheManager#createCacheBuilder(String)}.
+ * <p/>
+ * Workloads A, B and F are run by {@link #operation} with each key distribution. Workload E is run by
+ * {@link #scanInsert} on its own, as no key distribution applies to it: scans iterate over up to
+ * {@value #MAX_SCAN_LENGTH} entries from the start of the cache iterator, as caches have no key order, and inserts
+ * add keys after the initial keyCount, so the cache grows during the run.
+ * <p/>
+ * Run with several threads, for example -t 8, to see contention on hot keys.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkloadBenchmark extends CacheBenchmarkSupport<Integer, Integer> {
+
+    /**
+     * The most entries a scan reads
+     */
+    public static final int MAX_SCAN_LENGTH = 100;
+
+    private static final Cache.EntryProcessor<Integer, Integer> INCREMENT = new Cache.EntryProcessor<Integer, Integer>() {
+        @Override
+        public Object process(Cache.MutableEntry<Integer, Integer> entry) {
+            Integer value = entry.getValue();
+            entry.setValue(value == null ? 0 : value + 1);
+            return value;
+        }
+    };
+
+    /**
+     * The number of keys loaded before the run
+     */
+    @Param({"100000"})
+    public int keyCount;
+
+    private AtomicInteger insertedKeyCount;
+
+    /**
+     * Creates and loads the cache
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        createCache();
+        for (int i = 0; i < keyCount; i++) {
+            cache.put(i, i);
+        }
+        insertedKeyCount = new AtomicInteger(keyCount);
+    }
+
+    /**
+     * Removes the cache
+     */
+    @TearDown(Level.Trial)
+    public void teardown() {
+        removeCache();
+    }
+
+    @Benchmark
+    public Object operation(ScalingBenchmark.ThreadRandom random, KeyedWorkload workload) {
+        return perform(workload.workloadMix.nextOperation(random), random, workload.keyChooser);
+    }
+
+    @Benchmark
+    public Object scanInsert(ScalingBenchmark.ThreadRandom random) {
+        return perform(WorkloadMix.E.nextOperation(random), random, null);
+    }
+
+    private Object perform(WorkloadMix.OperationType operation, ScalingBenchmark.ThreadRandom random,
+                           KeyChooser keyChooser) {
+        switch (operation) {
+            case READ:
+                return cache.get(keyChooser.nextKey(random));
+            case UPDATE:
+                cache.put(keyChooser.nextKey(random), random.nextInt(Integer.MAX_VALUE));
+                return null;
+            case READ_MODIFY_WRITE:
+                return cache.invokeEntryProcessor(keyChooser.nextKey(random), INCREMENT);
+            case SCAN:
+                return scan(random.nextInt(MAX_SCAN_LENGTH) + 1);
+            default:
+                int key = insertedKeyCount.getAndIncrement();
+                cache.put(key, key);
+                return null;
+        }
+    }
+
+    private Object scan(int length) {
+        Cache.Entry<Integer, Integer> last = null;
+        Iterator<Cache.Entry<Integer, Integer>> iterator = cache.iterator();
+        for (int i = 0; i < length && iterator.hasNext(); i++) {
+            last = iterator.next();
+        }
+        return last;
+    }
+
+    /**
+     * A workload whose keys follow a distribution
+     */
+    @State(Scope.Benchmark)
+    public static class KeyedWorkload {
+
+        /**
+         * The name of a {@link WorkloadMix} other than E
+         */
+        @Param({"A", "B", "F"})
+        public String mix;
+
+        /**
+         * The name of a {@link KeyDistribution}
+         */
+        @Param({"UNIFORM", "ZIPFIAN", "LATEST", "HOTSPOT"})
+        public String distribution;
+
+        private WorkloadMix workloadMix;
+        private KeyChooser keyChooser;
+
+        /**
+         * Creates the key chooser over the keys loaded by the benchmark
+         *
+         * @param benchmark the benchmark, once it has loaded the cache
+         */
+        @Setup(Level.Trial)
+        public void setUp(WorkloadBenchmark benchmark) {
+            workloadMix = WorkloadMix.valueOf(mix);
+            keyChooser = KeyDistribution.valueOf(distribution).createChooser(benchmark.insertedKeyCount);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+
+/**
+ * The core YCSB workloads, as proportions of each {@link OperationType}.
+ *
+ * @since 1.0
+ */
+public enum WorkloadMix {
+
+    /**
+     * Update heavy: 50% reads, 50% updates
+     */
+    A(0.5, 0.5, 0, 0, 0),
+
+    /**
+     * Read mostly: 95% reads, 5% updates
+     */
+    B(0.95, 0.05, 0, 0, 0),
+
+    /**
+     * Short scans: 95% scans, 5% inserts
+     */
+    E(0, 0, 0, 0.95, 0.05),
+
+    /**
+     * Read-modify-write: 50% reads, 50% read-modify-writes with an entry processor
+     */
+    F(0.5, 0, 0.5, 0, 0);
+
+    private static final double ROUNDING = 1e-9;
+
+    private final double readThreshold;
+    private final double updateThreshold;
+    private final double readModifyWriteThreshold;
+    private final double scanThreshold;
+
+    private WorkloadMix(double read, double update, double readModifyWrite, double scan, double insert) {
+        if (Math.abs(read + update + readModifyWrite + scan + insert - 1) > ROUNDING) {
+            throw new IllegalArgumentException("shares must add up to 1");
+        }
+        this.readThreshold = read;
+        this.updateThreshold = read + update;
+        this.readModifyWriteThreshold = read + update + readModifyWrite;
+        this.scanThreshold = read + update + readModifyWrite + scan;
+    }
+
+    /**
+     * @param random the random numbers of the calling thread
+     * @return the type of the next operation
+     */
+    public OperationType nextOperation(ScalingBenchmark.ThreadRandom random) {
+        double choice = random.nextDouble();
+        if (choice < readThreshold) {
+            return OperationType.READ;
+        } else if (choice < updateThreshold) {
+            return OperationType.UPDATE;
+        } else if (choice < readModifyWriteThreshold) {
+            return OperationType.READ_MODIFY_WRITE;
+        } else if (choice < scanThreshold) {
+            return OperationType.SCAN;
+        } else {
+            return OperationType.INSERT;
+        }
+    }
+
+    /**
+     * The operations of a workload
+     */
+    public enum OperationType {
+        /**
+         * get an existing key
+         */
+        READ,
+
+        /**
+         * put a new value for an existing key
+         */
+        UPDATE,
+
+        /**
+         * invokeEntryProcessor to read and replace the value of an existing key
+         */
+        READ_MODIFY_WRITE,
+
+        /**
+         * iterate over a few entries
+         */
+        SCAN,
+
+        /**
+         * put a new key
+         */
+        INSERT
+    }
+}
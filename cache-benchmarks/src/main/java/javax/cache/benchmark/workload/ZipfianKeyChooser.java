@@ -0,0 +1,124 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.benchmark.workload;
+
+import javax.cache.benchmark.ScalingBenchmark;
+
+/**
+ * Chooses keys with a Zipfian distribution, where the popularity of the key of rank r is proportional to
+ * 1 / r^theta, using the algorithm of Gray et al, "Quickly Generating Billion-Record Synthetic Databases".
+ * <p/>
+ * With the default theta of 0.99 the most popular key gets about 8% of the operations for 100k keys. Ranks
+ * are scattered across the key space with a hash, so the popular keys are not also neighbours.
+ *
+ * @since 1.0
+ */
+public class ZipfianKeyChooser extends KeyChooser {
+
+    /**
+     * The skew used by YCSB
+     */
+    public static final double DEFAULT_THETA = 0.99;
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 1099511628211L;
+
+    private final int keyCount;
+    private final boolean scrambled;
+    private final double theta;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+    private final double secondRankThreshold;
+
+    /**
+     * Constructor for scattered keys with the default skew
+     *
+     * @param keyCount the number of keys
+     */
+    public ZipfianKeyChooser(int keyCount) {
+        this(keyCount, DEFAULT_THETA, true);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param keyCount  the number of keys
+     * @param theta     the skew, greater than 0 and less than 1
+     * @param scrambled false to return the ranks, so that key 0 is the most popular
+     */
+    public ZipfianKeyChooser(int keyCount, double theta, boolean scrambled) {
+        if (theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("theta must be between 0 and 1: " + theta);
+        }
+        this.keyCount = keyCount;
+        this.theta = theta;
+        this.scrambled = scrambled;
+        zetaN = zeta(keyCount, theta);
+        alpha = 1.0 / (1.0 - theta);
+        eta = (1 - Math.pow(2.0 / keyCount, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+        secondRankThreshold = 1 + Math.pow(0.5, theta);
+    }
+
+    @Override
+    public int nextKey(ScalingBenchmark.ThreadRandom random) {
+        int rank = nextRank(random);
+        return scrambled ? scramble(rank) : rank;
+    }
+
+    /**
+     * @param random the random numbers of the calling thread
+     * @return the rank of the next key, 0 being the most popular
+     */
+    int nextRank(ScalingBenchmark.ThreadRandom random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < secondRankThreshold) {
+            return 1;
+        }
+        return Math.min(keyCount - 1, (int) (keyCount * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    /**
+     * @return the skew
+     */
+    public double getTheta() {
+        return theta;
+    }
+
+    private int scramble(int rank) {
+        long hash = FNV_OFFSET_BASIS;
+        long value = rank;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+            value >>>= 8;
+        }
+        return (int) ((hash >>> 1) % keyCount);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
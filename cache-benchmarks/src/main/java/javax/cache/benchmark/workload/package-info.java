@@ -0,0 +1,24 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+/**
+ This package contains YCSB style workloads: standard operation mixes run over keys chosen with uniform, Zipfian,
+ latest and hotspot distributions.
+
+ Skewed access concentrates contention on a few hot keys, where the striping and locking of an implementation
+ is tested much harder than by sequential or uniform keys.
+ */
+package javax.cache.benchmark.workload;
@@ -26,9 +26,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -732,6 +734,43 @@ public class CacheInvokeTest extends CacheTestSupport<Integer, String> {
         assertTrue(r2.asynchResult.outTime >= r1.asynchResult.outTime);
     }
 
+    /**
+     * Processors on different keys must not lock each other out. Run concurrently they should take
+     * about as long as one processor, not as long as all of them run one after the other.
+     */
+    @Test
+    public void processorDistinctKeysInParallel() throws Exception {
+        final int processors = 10;
+        final long sleep = 200L;
+        final String value1 = "a1";
+        final String value2 = "a2";
+
+        AbstractRunnable[] runnables = new AbstractRunnable[processors];
+        Thread[] threads = new Thread[processors];
+        for (int i = 0; i < processors; i++) {
+            cache.put(i, value1);
+            runnables[i] = new MyProcessorRunnable<Integer, String>(cache, i, value1, value2, sleep);
+            threads[i] = new Thread(runnables[i]);
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (int i = 0; i < processors; i++) {
+            assertNull(runnables[i].asynchResult.throwable);
+            assertEquals(value1, runnables[i].asynchResult.ret);
+            assertEquals(value2, cache.get(i));
+        }
+        assertTrue("processors on distinct keys took " + elapsedMillis + "ms, one processor takes " + sleep
+                + "ms and all of them in sequence " + processors * sleep + "ms",
+                elapsedMillis < 3 * sleep);
+    }
+
     private static class MockEntryProcessor<K, V> implements Cache.EntryProcessor<K, V> {
 
         @Override
@@ -780,19 +819,22 @@ public class CacheInvokeTest extends CacheTestSupport<Integer, String> {
 
         @Override
         public void run() {
-            asynchResult.inTime = System.currentTimeMillis();
+            asynchResult.inTime = System.nanoTime();
             try {
                 asynchResult.ret = internalRun();
             } catch (Throwable t) {
                 asynchResult.throwable = t;
             } finally {
-                asynchResult.outTime = System.currentTimeMillis();
+                asynchResult.outTime = System.nanoTime();
             }
         }
 
         protected abstract Object internalRun();
     }
 
+    /**
+     * The outcome of an AbstractRunnable, with times from {@link System#nanoTime()}
+     */
     private static class AsynchResult {
         public long inTime;
         public long outTime;
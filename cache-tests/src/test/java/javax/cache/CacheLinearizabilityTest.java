@@ -0,0 +1,369 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.util.ExcludeListExcluder;
+import javax.cache.util.LinearizabilityChecker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized concurrency test which checks that single key operations are linearizable.
+ * <p/>
+ * Each round several threads run a random mix of put, putIfAbsent, replace, getAndRemove, get and
+ * invokeEntryProcessor on a few keys, recording when each call was invoked and when it responded. The
+ * history is then checked against a sequential model with {@link LinearizabilityChecker}. A failure reports
+ * the seed of the round and a minimal history which cannot be linearized.
+ * <p/>
+ * Rounds are kept short so that the check stays fast. Set the seed with the system property
+ * {@value #SEED_PROPERTY} to repeat a failing run.
+ *
+ * @since 1.0
+ */
+public class CacheLinearizabilityTest extends CacheTestSupport<Integer, Integer> {
+
+    /**
+     * The system property holding the seed of the first round
+     */
+    public static final String SEED_PROPERTY = "linearizability.seed";
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    private static final int ROUNDS = 50;
+    private static final int THREAD_COUNT = 4;
+    private static final int OPERATIONS_PER_THREAD = 30;
+    private static final int KEY_COUNT = 3;
+    private static final long ROUND_WAIT_SECONDS = 30;
+
+    @Test
+    public void singleKeyOperationsAreLinearizable() throws Exception {
+        long seed = Long.getLong(SEED_PROPERTY, System.nanoTime());
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                cache.removeAll();
+                List<CacheOperation> history = runRound(executor, seed + round);
+                List<LinearizabilityChecker.Operation<Integer, Integer>> violation =
+                        LinearizabilityChecker.findViolation(history);
+                if (!violation.isEmpty()) {
+                    fail("History is not linearizable. Repeat with -D" + SEED_PROPERTY + "=" + (seed + round) +
+                            ". Minimal history:" + LinearizabilityChecker.format(violation));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<CacheOperation> runRound(ExecutorService executor, long seed) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+        List<Future<List<CacheOperation>>> futures = new ArrayList<Future<List<CacheOperation>>>();
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final Random random = new Random(seed * 31 + thread);
+            final int valueBase = (thread + 1) * 1000000;
+            futures.add(executor.submit(new Callable<List<CacheOperation>>() {
+                @Override
+                public List<CacheOperation> call() throws Exception {
+                    List<CacheOperation> operations = new ArrayList<CacheOperation>();
+                    barrier.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        CacheOperation operation = randomOperation(random, valueBase + i);
+                        operation.invoked();
+                        operation.execute(cache);
+                        operation.responded();
+                        operations.add(operation);
+                    }
+                    return operations;
+                }
+            }));
+        }
+        List<CacheOperation> history = new ArrayList<CacheOperation>();
+        for (Future<List<CacheOperation>> future : futures) {
+            history.addAll(future.get(ROUND_WAIT_SECONDS, TimeUnit.SECONDS));
+        }
+        return history;
+    }
+
+    /**
+     * Picks a random operation. The expected value of a 3-arg replace is a value recently written to the
+     * key, so that some of them succeed.
+     */
+    private static CacheOperation randomOperation(Random random, int newValue) {
+        Integer key = random.nextInt(KEY_COUNT);
+        switch (random.nextInt(7)) {
+            case 0:
+                return new Put(key, newValue);
+            case 1:
+                return new PutIfAbsent(key, newValue);
+            case 2:
+                return new Replace(key, newValue);
+            case 3:
+                return new ReplaceIfEquals(key, newValue - random.nextInt(3), newValue);
+            case 4:
+                return new GetAndRemove(key);
+            case 5:
+                return new Get(key);
+            default:
+                return new Increment(key);
+        }
+    }
+
+    // ---------- operations ----------
+
+    /**
+     * An operation which can be run against the cache, recording its result
+     */
+    private abstract static class CacheOperation extends LinearizabilityChecker.Operation<Integer, Integer> {
+
+        protected CacheOperation(Integer key) {
+            super(key);
+        }
+
+        abstract void execute(Cache<Integer, Integer> cache);
+    }
+
+    private static final class Put extends CacheOperation {
+        private final Integer value;
+
+        private Put(Integer key, Integer value) {
+            super(key);
+            this.value = value;
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            cache.put(getKey(), value);
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return true;
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "put(" + getKey() + ", " + value + ")";
+        }
+    }
+
+    private static final class PutIfAbsent extends CacheOperation {
+        private final Integer value;
+        private boolean result;
+
+        private PutIfAbsent(Integer key, Integer value) {
+            super(key);
+            this.value = value;
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.putIfAbsent(getKey(), value);
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return result == (before == null);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return result ? value : before;
+        }
+
+        @Override
+        public String toString() {
+            return "putIfAbsent(" + getKey() + ", " + value + ") -> " + result;
+        }
+    }
+
+    private static final class Replace extends CacheOperation {
+        private final Integer value;
+        private boolean result;
+
+        private Replace(Integer key, Integer value) {
+            super(key);
+            this.value = value;
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.replace(getKey(), value);
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return result == (before != null);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return result ? value : before;
+        }
+
+        @Override
+        public String toString() {
+            return "replace(" + getKey() + ", " + value + ") -> " + result;
+        }
+    }
+
+    private static final class ReplaceIfEquals extends CacheOperation {
+        private final Integer oldValue;
+        private final Integer newValue;
+        private boolean result;
+
+        private ReplaceIfEquals(Integer key, Integer oldValue, Integer newValue) {
+            super(key);
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.replace(getKey(), oldValue, newValue);
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return result == oldValue.equals(before);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return result ? newValue : before;
+        }
+
+        @Override
+        public String toString() {
+            return "replace(" + getKey() + ", " + oldValue + ", " + newValue + ") -> " + result;
+        }
+    }
+
+    private static final class GetAndRemove extends CacheOperation {
+        private Integer result;
+
+        private GetAndRemove(Integer key) {
+            super(key);
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.getAndRemove(getKey());
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return equal(result, before);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "getAndRemove(" + getKey() + ") -> " + result;
+        }
+    }
+
+    private static final class Get extends CacheOperation {
+        private Integer result;
+
+        private Get(Integer key) {
+            super(key);
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.get(getKey());
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return equal(result, before);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return before;
+        }
+
+        @Override
+        public String toString() {
+            return "get(" + getKey() + ") -> " + result;
+        }
+    }
+
+    /**
+     * An entry processor which increments the value, or sets it to 0 if absent, returning the old value
+     */
+    private static final class Increment extends CacheOperation {
+        private Object result;
+
+        private Increment(Integer key) {
+            super(key);
+        }
+
+        @Override
+        void execute(Cache<Integer, Integer> cache) {
+            result = cache.invokeEntryProcessor(getKey(), new Cache.EntryProcessor<Integer, Integer>() {
+                @Override
+                public Object process(Cache.MutableEntry<Integer, Integer> entry) {
+                    Integer old = entry.exists() ? entry.getValue() : null;
+                    entry.setValue(old == null ? 0 : old + 1);
+                    return old;
+                }
+            });
+        }
+
+        @Override
+        public boolean isConsistent(Integer before) {
+            return equal(result, before);
+        }
+
+        @Override
+        public Integer apply(Integer before) {
+            return before == null ? 0 : before + 1;
+        }
+
+        @Override
+        public String toString() {
+            return "invokeEntryProcessor(" + getKey() + ", increment) -> " + result;
+        }
+    }
+}
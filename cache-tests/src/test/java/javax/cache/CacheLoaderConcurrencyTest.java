@@ -0,0 +1,159 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.util.ExcludeListExcluder;
+import javax.cache.util.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrency tests for read through with a {@link CacheLoader}.
+ * <p/>
+ * The specification does not require concurrent loads of the same key to be coalesced, so these tests only
+ * assert correctness. Whether the implementation coalesced the loads, how many times the loader ran and the
+ * p99 latency of the gets are logged.
+ *
+ * @since 1.0
+ */
+public class CacheLoaderConcurrencyTest extends TestSupport {
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    /**
+     * the number of threads getting the same key at once
+     */
+    protected static final int THREAD_COUNT = 128;
+
+    /**
+     * how long the loader takes to load a value
+     */
+    protected static final long LOAD_MILLIS = 200;
+
+    /**
+     * the time to wait for all the gets to complete
+     */
+    protected static final long GET_WAIT_MILLIS = 30000;
+
+    @After
+    public void cleanup() {
+        for (Cache<?, ?> cache : getCacheManager().getCaches()) {
+            getCacheManager().removeCache(cache.getName());
+        }
+    }
+
+    @Test
+    public void get_SameMissingKey_Stampede() throws Exception {
+        final SlowCountingCacheLoader<Integer> loader = new SlowCountingCacheLoader<Integer>(LOAD_MILLIS);
+        final Cache<Integer, Integer> cache = getCacheManager().<Integer, Integer>createCacheBuilder(getTestCacheName()).
+                setReadThrough(true).setCacheLoader(loader).build();
+        final Integer key = 1;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        start.await();
+                        long begin = System.nanoTime();
+                        assertEquals(key, cache.get(key));
+                        return System.nanoTime() - begin;
+                    }
+                }));
+            }
+            start.countDown();
+
+            LatencyHistogram latencies = new LatencyHistogram();
+            for (Future<Long> future : futures) {
+                latencies.recordValue(future.get(GET_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            }
+
+            int loads = loader.getLoadCount();
+            LOG.info("Read through stampede of " + THREAD_COUNT + " gets: " + (loads == 1 ? "coalesced" : "not coalesced") +
+                    ", loader calls=" + loads + ", latency " + latencies.summary(TimeUnit.MILLISECONDS));
+
+            assertTrue(loads >= 1);
+            assertTrue(loads <= THREAD_COUNT);
+            assertTrue(cache.containsKey(key));
+            assertEquals(key, cache.get(key));
+            assertEquals(loads, loader.getLoadCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ---------- utilities ----------
+
+    /**
+     * A Cache Loader which adds the key as the value after a delay, and counts how many times it has been called.
+     *
+     * @param <K>
+     */
+    public static class SlowCountingCacheLoader<K> extends CacheLoaderTest.SimpleCacheLoader<K> {
+
+        private final long delayMillis;
+        private final AtomicInteger loadCount = new AtomicInteger();
+
+        /**
+         * Constructor
+         *
+         * @param delayMillis how long each load takes
+         */
+        public SlowCountingCacheLoader(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public Cache.Entry<K, K> load(K key) {
+            loadCount.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.load(key);
+        }
+
+        /**
+         * @return the number of times {@link #load(Object)} has been called
+         */
+        public int getLoadCount() {
+            return loadCount.get();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.util.ExcludeListExcluder;
+import javax.cache.util.HeapMeter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress tests for creating and removing caches from many threads at once.
+ *
+ * @since 1.0
+ */
+public class CacheManagerChurnTest extends TestSupport {
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    private static final int THREAD_COUNT = 16;
+    private static final int ITERATIONS = 200;
+    private static final int RACE_ROUNDS = 50;
+    private static final int LEAK_CHECK_CACHES = 100;
+    private static final long WAIT_SECONDS = 60;
+
+    @After
+    public void cleanup() {
+        for (Cache<?, ?> cache : getCacheManager().getCaches()) {
+            getCacheManager().removeCache(cache.getName());
+        }
+    }
+
+    @Test
+    public void createAndRemove_ManyThreads() throws Exception {
+        final CacheManager cacheManager = getCacheManager();
+        runConcurrently(new ThreadTask() {
+            @Override
+            public void run(int thread) {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    String name = "churn-" + thread + "-" + i;
+                    Cache<Integer, Integer> cache = cacheManager.<Integer, Integer>createCacheBuilder(name).build();
+                    cache.put(i, i);
+                    assertEquals(Integer.valueOf(i), cache.get(i));
+                    assertTrue(cacheManager.removeCache(name));
+                    assertNull(cacheManager.getCache(name));
+                }
+            }
+        });
+
+        for (Cache<?, ?> cache : cacheManager.getCaches()) {
+            assertFalse(cache.getName().startsWith("churn-"));
+        }
+    }
+
+    /**
+     * Many threads create a cache with the same name at once. As in CacheManagerTest.createCache_DifferentSameName,
+     * each may either create a cache or get a CacheException, but afterwards the manager must hold exactly one
+     * started cache with the name, built by one of the threads.
+     */
+    @Test
+    public void createSameName_Race() throws Exception {
+        final CacheManager cacheManager = getCacheManager();
+        for (int round = 0; round < RACE_ROUNDS; round++) {
+            final String name = "race-" + round;
+            final List<Cache<Integer, Integer>> built = new ArrayList<Cache<Integer, Integer>>();
+            runConcurrently(new ThreadTask() {
+                @Override
+                public void run(int thread) {
+                    try {
+                        Cache<Integer, Integer> cache = cacheManager.<Integer, Integer>createCacheBuilder(name).build();
+                        synchronized (built) {
+                            built.add(cache);
+                        }
+                    } catch (CacheException e) {
+                        //allowed
+                    }
+                }
+            });
+
+            assertFalse(built.isEmpty());
+            Cache<Integer, Integer> cache = cacheManager.getCache(name);
+            assertNotNull(cache);
+            assertTrue(built.contains(cache));
+            assertEquals(Status.STARTED, cache.getStatus());
+            cache.put(1, 1);
+            assertEquals(Integer.valueOf(1), cache.get(1));
+
+            assertTrue(cacheManager.removeCache(name));
+            assertNull(cacheManager.getCache(name));
+        }
+    }
+
+    /**
+     * Removed caches must not be held on to by the cache manager. This relies on {@link System#gc()} being
+     * honoured, and is skipped where it is not.
+     */
+    @Test
+    public void removeCache_LeavesNothingBehind() throws Exception {
+        Assume.assumeTrue(HeapMeter.isExplicitGcHonoured());
+        CacheManager cacheManager = getCacheManager();
+        List<WeakReference<Cache<Integer, byte[]>>> removed = new ArrayList<WeakReference<Cache<Integer, byte[]>>>();
+        for (int i = 0; i < LEAK_CHECK_CACHES; i++) {
+            String name = "leak-" + i;
+            Cache<Integer, byte[]> cache = cacheManager.<Integer, byte[]>createCacheBuilder(name).build();
+            cache.put(i, new byte[1024]);
+            removed.add(new WeakReference<Cache<Integer, byte[]>>(cache));
+            cacheManager.removeCache(name);
+        }
+
+        int retained = HeapMeter.collectUntilCleared(removed);
+        LOG.info(retained + " of " + LEAK_CHECK_CACHES + " removed caches are still reachable");
+        assertEquals(0, retained);
+    }
+
+    /**
+     * Work run by each thread
+     */
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(final ThreadTask task) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                final int threadNumber = thread;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        task.run(threadNumber);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -40,11 +40,7 @@ public class CacheManagerNoTransactionsTest extends TestSupport {
 
     @Before
     public void startUp() {
-        try {
-            Caching.close();
-        }   catch (CachingShutdownException e) {
-            //this will happen if we call close twice in a row.
-        }
+        closeTestCacheManager();
     }
 
     /**
@@ -65,11 +65,7 @@ public class CacheManagerTest extends TestSupport {
 
     @Before
     public void startUp() {
-        try {
-            Caching.close();
-        }   catch (CachingShutdownException e) {
-            //this will happen if we call close twice in a row.
-        }
+        closeTestCacheManager();
     }
 
     @Test
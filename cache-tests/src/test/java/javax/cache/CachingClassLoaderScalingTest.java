@@ -0,0 +1,165 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.util.ExcludeListExcluder;
+import javax.cache.util.HeapMeter;
+import javax.cache.util.LatencyHistogram;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link Caching} with thousands of class loaders, as in an application server which has redeployed
+ * many applications.
+ * <p/>
+ * Lookups from many threads must keep returning the CacheManager scoped to each class loader, and once
+ * {@link Caching#close()} has been called neither the class loaders nor their CacheManagers may be held on to.
+ * The leak checks rely on {@link System#gc()} being honoured, and are skipped where it is not.
+ *
+ * @since 1.0
+ */
+public class CachingClassLoaderScalingTest {
+
+    private static final Logger LOG = Logger.getLogger(CachingClassLoaderScalingTest.class.getName());
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    private static final int LOADER_COUNT = 2000;
+    private static final int THREAD_COUNT = 16;
+    private static final int LOOKUPS_PER_THREAD = 20000;
+    private static final long WAIT_SECONDS = 60;
+    private static final String NAME = CachingClassLoaderScalingTest.class.getName();
+
+    @Before
+    public void startUp() {
+        Caching.close();
+    }
+
+    @After
+    public void tearDown() {
+        Caching.close();
+    }
+
+    @Test
+    public void getCacheManager_ManyLoadersManyThreads() throws Exception {
+        final List<ClassLoader> loaders = createLoaders(LOADER_COUNT);
+        final List<CacheManager> cacheManagers = new ArrayList<CacheManager>();
+        for (ClassLoader loader : loaders) {
+            cacheManagers.add(Caching.getCacheManager(loader, NAME));
+        }
+
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        LatencyHistogram latencies = new LatencyHistogram();
+        try {
+            List<Future<LatencyHistogram>> futures = new ArrayList<Future<LatencyHistogram>>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                final Random random = new Random(thread);
+                futures.add(executor.submit(new Callable<LatencyHistogram>() {
+                    @Override
+                    public LatencyHistogram call() throws Exception {
+                        LatencyHistogram histogram = new LatencyHistogram();
+                        barrier.await();
+                        for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                            int index = random.nextInt(LOADER_COUNT);
+                            long start = System.nanoTime();
+                            CacheManager cacheManager = Caching.getCacheManager(loaders.get(index), NAME);
+                            histogram.recordValue(System.nanoTime() - start);
+                            assertSame(cacheManagers.get(index), cacheManager);
+                        }
+                        return histogram;
+                    }
+                }));
+            }
+            for (Future<LatencyHistogram> future : futures) {
+                latencies.add(future.get(WAIT_SECONDS, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info("getCacheManager(ClassLoader, String) with " + LOADER_COUNT + " class loaders and " +
+                THREAD_COUNT + " threads: " + latencies.summary(TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void close_ReleasesLoadersAndCacheManagers() throws Exception {
+        Assume.assumeTrue(HeapMeter.isExplicitGcHonoured());
+        List<WeakReference<ClassLoader>> loaderReferences = new ArrayList<WeakReference<ClassLoader>>();
+        List<WeakReference<CacheManager>> cacheManagerReferences = new ArrayList<WeakReference<CacheManager>>();
+        createCacheManagers(loaderReferences, cacheManagerReferences);
+
+        Caching.close();
+
+        int retainedLoaders = HeapMeter.collectUntilCleared(loaderReferences);
+        int retainedCacheManagers = HeapMeter.collectUntilCleared(cacheManagerReferences);
+        LOG.info("After close, " + retainedLoaders + " of " + LOADER_COUNT + " class loaders and " +
+                retainedCacheManagers + " of " + LOADER_COUNT + " cache managers are still reachable");
+        assertEquals(0, retainedLoaders);
+        assertEquals(0, retainedCacheManagers);
+    }
+
+    /**
+     * Creates a CacheManager with a cache for each of LOADER_COUNT class loaders, keeping only weak references,
+     * so that nothing created is reachable from the stack once this returns.
+     */
+    private static void createCacheManagers(List<WeakReference<ClassLoader>> loaderReferences,
+                                            List<WeakReference<CacheManager>> cacheManagerReferences) {
+        for (ClassLoader loader : createLoaders(LOADER_COUNT)) {
+            CacheManager cacheManager = Caching.getCacheManager(loader, NAME);
+            cacheManager.<Integer, Integer>createCacheBuilder("cache").build().put(1, 1);
+            loaderReferences.add(new WeakReference<ClassLoader>(loader));
+            cacheManagerReferences.add(new WeakReference<CacheManager>(cacheManager));
+        }
+    }
+
+    private static List<ClassLoader> createLoaders(int count) {
+        ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        List<ClassLoader> loaders = new ArrayList<ClassLoader>(count);
+        for (int i = 0; i < count; i++) {
+            loaders.add(new MyClassLoader(parent));
+        }
+        return loaders;
+    }
+
+    private static class MyClassLoader extends ClassLoader {
+        public MyClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+    }
+}
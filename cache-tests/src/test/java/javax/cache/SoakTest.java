@@ -0,0 +1,204 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.util.ExcludeListExcluder;
+import javax.cache.util.HeapMeter;
+import javax.cache.util.OpenLoopLoadGenerator;
+import javax.cache.util.TrendDetector;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.fail;
+
+/**
+ * A long running mix of put, get, remove, invokeEntryProcessor and load against one cache, to find leaks and
+ * degradation which only show up over time.
+ * <p/>
+ * The test is skipped unless the system property {@value #MINUTES_PROPERTY} gives the number of minutes to run
+ * for. The operations are issued by an {@link OpenLoopLoadGenerator} at {@value #RATE_PROPERTY} operations a
+ * second, 10000 by default, from {@value #THREADS_PROPERTY} threads, 4 by default. Latency is measured from when
+ * each operation should have started, so an implementation which stalls shows a worse p99 rather than fewer
+ * samples.
+ * <p/>
+ * The load is run in periods of {@value #SAMPLE_SECONDS_PROPERTY} seconds, 60 by default. After each, the p99
+ * response time of the period, the number of live threads and the heap used after garbage collection are sampled.
+ * The first fifth of the samples is ignored as warm up. The test fails if {@link TrendDetector} finds any of them
+ * trending upward over the rest: the mean of the last third of the samples is more than {@value #TOLERANCE_PROPERTY}
+ * times, 1.25 by default, the mean of the first third, and the least squares slope of all of them is positive.
+ * <p/>
+ * The key space is fixed, so a correct implementation holds a bounded number of entries throughout. Heap sizes
+ * are only meaningful where {@link System#gc()} is honoured, so the heap is not checked where it is ignored.
+ *
+ * @since 1.0
+ */
+public class SoakTest extends TestSupport {
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    /**
+     * The system property holding the number of minutes to run for, which may be fractional
+     */
+    public static final String MINUTES_PROPERTY = "tck.soak.minutes";
+
+    /**
+     * The system property holding the number of seconds between samples
+     */
+    public static final String SAMPLE_SECONDS_PROPERTY = "tck.soak.sampleSeconds";
+
+    /**
+     * The system property holding the factor by which a sample may grow before it counts as a trend
+     */
+    public static final String TOLERANCE_PROPERTY = "tck.soak.tolerance";
+
+    /**
+     * The system property holding the number of threads issuing operations
+     */
+    public static final String THREADS_PROPERTY = "tck.soak.threads";
+
+    /**
+     * The system property holding the number of operations issued each second
+     */
+    public static final String RATE_PROPERTY = "tck.soak.rate";
+
+    private static final int KEY_COUNT = 10000;
+    private static final int MIN_SAMPLES = 10;
+    private static final long HEAP_NOISE_BYTES = 1024 * 1024;
+    private static final long LATENCY_NOISE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long THREAD_NOISE = 1;
+
+    @After
+    public void cleanup() {
+        for (Cache<?, ?> cache : getCacheManager().getCaches()) {
+            getCacheManager().removeCache(cache.getName());
+        }
+    }
+
+    @Test
+    public void mixedWorkload_NoUpwardTrend() throws Exception {
+        double minutes = Double.parseDouble(System.getProperty(MINUTES_PROPERTY, "0"));
+        Assume.assumeTrue(minutes > 0);
+        long durationMillis = (long) (minutes * TimeUnit.MINUTES.toMillis(1));
+        long sampleMillis = Math.min(TimeUnit.SECONDS.toMillis(Long.getLong(SAMPLE_SECONDS_PROPERTY, 60)),
+                durationMillis / MIN_SAMPLES);
+        int sampleCount = (int) (durationMillis / sampleMillis);
+        double tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, "1.25"));
+        int threadCount = Integer.getInteger(THREADS_PROPERTY, 4);
+        long rate = Long.getLong(RATE_PROPERTY, 10000);
+
+        Cache<Integer, Integer> cache = getCacheManager().<Integer, Integer>createCacheBuilder(getTestCacheName()).
+                setCacheLoader(new CacheLoaderTest.SimpleCacheLoader<Integer>()).build();
+        MixedOperation operation = new MixedOperation(cache);
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(threadCount, rate);
+
+        boolean gcHonoured = HeapMeter.isExplicitGcHonoured();
+        if (!gcHonoured) {
+            LOG.warning("System.gc() is not honoured by this JVM, so the heap will not be checked for a trend");
+        }
+        long[] heap = new long[sampleCount];
+        long[] threads = new long[sampleCount];
+        long[] p99 = new long[sampleCount];
+        LOG.info("Soak test of " + minutes + " minutes at " + rate + " operations a second from " + threadCount
+                + " threads, sampling every " + sampleMillis + "ms");
+        for (int i = 0; i < sampleCount; i++) {
+            OpenLoopLoadGenerator.Result result = generator.run(operation, sampleMillis, TimeUnit.MILLISECONDS);
+            if (result.getErrorCount() > 0) {
+                throw new AssertionError(result.getErrorCount() + " operations failed, the first with "
+                        + result.getFirstError());
+            }
+            //sampled between periods, so that the pauses for garbage collection are not charged to the implementation
+            p99[i] = result.getResponseTime().getValueAtPercentile(99);
+            threads[i] = ManagementFactory.getThreadMXBean().getThreadCount();
+            heap[i] = gcHonoured ? HeapMeter.getUsedHeapAfterGc() : HeapMeter.getUsedHeap();
+            LOG.info("Soak sample " + (i + 1) + " of " + sampleCount + ": heap used=" + heap[i] + " bytes, threads="
+                    + threads[i] + ", response time " + result.getResponseTime().summary(TimeUnit.MICROSECONDS));
+        }
+
+        List<String> trends = new ArrayList<String>();
+        if (gcHonoured) {
+            TrendDetector.addIfTrending(trends, "heap after GC (bytes)", heap, tolerance, HEAP_NOISE_BYTES);
+        }
+        TrendDetector.addIfTrending(trends, "live threads", threads, tolerance, THREAD_NOISE);
+        TrendDetector.addIfTrending(trends, "p99 response time (ns)", p99, tolerance, LATENCY_NOISE_NANOS);
+        if (!trends.isEmpty()) {
+            fail("Trending upward during the soak test: " + trends);
+        }
+    }
+
+    /**
+     * 40% get, 25% put, 15% remove, 10% invokeEntryProcessor and 10% load of a random key
+     */
+    private static final class MixedOperation implements Runnable {
+
+        private final Cache<Integer, Integer> cache;
+        private final Random random = new Random();
+
+        private MixedOperation(Cache<Integer, Integer> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void run() {
+            Integer key = random.nextInt(KEY_COUNT);
+            int percent = random.nextInt(100);
+            if (percent < 40) {
+                cache.get(key);
+            } else if (percent < 65) {
+                cache.put(key, percent);
+            } else if (percent < 80) {
+                cache.remove(key);
+            } else if (percent < 90) {
+                cache.invokeEntryProcessor(key, new IncrementProcessor());
+            } else {
+                try {
+                    cache.load(key).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    throw new CacheException(e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Increments the value of an entry, or sets it to 0 if there is none
+     */
+    private static final class IncrementProcessor implements Cache.EntryProcessor<Integer, Integer>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object process(Cache.MutableEntry<Integer, Integer> entry) {
+            entry.setValue(entry.exists() ? entry.getValue() + 1 : 0);
+            return null;
+        }
+    }
+}
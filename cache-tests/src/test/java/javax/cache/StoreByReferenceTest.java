@@ -59,11 +59,7 @@ public class StoreByReferenceTest extends CacheTestSupport<Date, Date> {
 
     @After
     public void teardown() {
-        try {
-            Caching.close();
-        } catch (CachingShutdownException e) {
-            //expected
-        }
+        closeTestCacheManager();
     }
 
     @Test
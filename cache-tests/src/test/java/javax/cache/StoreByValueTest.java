@@ -36,11 +36,7 @@ public class StoreByValueTest extends CacheTestSupport<Date, Date> {
     @After
     public void teardown() {
         getCacheManager().removeCache(getTestCacheName());
-        try {
-            Caching.close();
-        } catch (CachingShutdownException e) {
-            //expected
-        }
+        closeTestCacheManager();
     }
 
 
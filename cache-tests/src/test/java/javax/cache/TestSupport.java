@@ -16,16 +16,23 @@
  */
 package javax.cache;
 
+import org.junit.After;
+
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 /**
  * Unit test support base class
  * <p/>
+ * When the system property {@value #PARALLEL_PROPERTY} is "true" each test gets a CacheManager and cache name of
+ * its own, so that test classes can run in parallel in one JVM. The CacheManager is closed after each test. Tests
+ * should release their CacheManager with {@link #closeTestCacheManager()} rather than closing every CacheManager
+ * with {@link Caching#close()}.
  *
  * @author Yannis Cosmadopoulos
  * @since 1.0
@@ -36,6 +43,16 @@ public class TestSupport {
      * The logger
      */
     protected static final Logger LOG = Logger.getLogger(TestSupport.class.getName());
+
+    /**
+     * The system property which turns on the parallel mode
+     */
+    public static final String PARALLEL_PROPERTY = "tck.parallel";
+
+    private static final boolean PARALLEL = Boolean.getBoolean(PARALLEL_PROPERTY);
+    private static final AtomicLong TEST_IDS = new AtomicLong();
+
+    private final String testName = PARALLEL ? getClass().getName() + "-" + TEST_IDS.incrementAndGet() : getClass().getName();
     
     private final Map<Class<?>, Class<?>> unwrapClasses = Collections.synchronizedMap(new HashMap<Class<?>, Class<?>>());
     private Properties unwrapProperties;
@@ -45,13 +62,41 @@ public class TestSupport {
     }
 
     protected String getTestCacheManagerName() {
-        return getClass().getName();
+        return testName;
     }
 
     protected String getTestCacheName() {
-        return getClass().getName();
+        return testName;
+    }
+
+    /**
+     * Closes the CacheManager returned by {@link #getCacheManager()}, leaving the CacheManagers of any other tests
+     * open.
+     *
+     * @return true if the CacheManager was found and closed
+     */
+    protected boolean closeTestCacheManager() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            return Caching.close(classLoader == null ? Caching.class.getClassLoader() : classLoader,
+                    getTestCacheManagerName());
+        } catch (CachingShutdownException e) {
+            //this will happen if we call close twice in a row.
+            return false;
+        }
     }
     
+    /**
+     * In parallel mode, closes the CacheManager of the test once the subclasses have cleaned up, as no other test
+     * will use it.
+     */
+    @After
+    public void closeParallelTestCacheManager() {
+        if (PARALLEL) {
+            closeTestCacheManager();
+        }
+    }
+
     protected Class<?> getUnwrapClass(Class<?> unwrappableClass) {
         //contains check since null values are allowed
         if (this.unwrapClasses.containsKey(unwrappableClass)) {
@@ -26,18 +26,25 @@ import javax.cache.Caching;
 import javax.cache.util.AbstractTestExcluder;
 import java.util.Iterator;
 import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * Base class that ALL annotation/interceptor tests MUST extend from
+ * <p/>
+ * The BeanProvider, and so the container of the harness, is started once per JVM when this class is initialized,
+ * and shared by every interception test class. The time it took to start is logged.
  * 
  * @author Eric Dalquist
  * @version $Revision$
  */
 public class AbstractInterceptionTest {
+    private static final Logger LOG = Logger.getLogger(AbstractInterceptionTest.class.getName());
     private static final BeanProvider beanProvider;
 
     static {
         BeanProvider localBeanProvider = null; 
+        long start = System.nanoTime();
         try {
             final ServiceLoader<BeanProvider> serviceLoader = ServiceLoader.load(BeanProvider.class);
             final Iterator<BeanProvider> it = serviceLoader.iterator();
@@ -50,6 +57,11 @@ public class AbstractInterceptionTest {
         }
         
         beanProvider = localBeanProvider; 
+        long beanProviderStartupNanos = System.nanoTime() - start;
+        if (beanProvider != null) {
+            LOG.info("Started " + beanProvider.getClass().getName() + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(beanProviderStartupNanos) + " ms");
+        }
     }
     
 
@@ -78,4 +90,11 @@ public class AbstractInterceptionTest {
         
         return beanProvider.getBeanByType(beanClass);
     }
+
+    /**
+     * @return the class name of the BeanProvider, which identifies the harness under test
+     */
+    protected final String getBeanProviderName() {
+        return beanProvider == null ? null : beanProvider.getClass().getName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.annotation;
+
+import domain.Blog;
+import manager.CountingBlogManagerImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Many threads calling a method annotated with {@link CacheResult} for the same missing key at once.
+ * <p/>
+ * The specification does not require the calls to be coalesced, so this test only asserts that every caller gets
+ * the right value and that the result is cached. Whether the harness and provider coalesced the calls, and how many
+ * times the method body ran, are logged.
+ *
+ * @since 1.0
+ */
+public class InterceptionStampedeTest extends AbstractInterceptionTest {
+
+    /**
+     * the number of threads calling the method at once
+     */
+    protected static final int THREAD_COUNT = 100;
+
+    /**
+     * the time to wait for all the calls to complete
+     */
+    protected static final long CALL_WAIT_MILLIS = 60000;
+
+    private static final Logger LOG = Logger.getLogger(InterceptionStampedeTest.class.getName());
+
+    @Test
+    public void test_AT_CacheResult_ColdKeyStampede() throws Exception {
+        final CountingBlogManagerImpl blogManager = getBeanByType(CountingBlogManagerImpl.class);
+        final String title = "stampede " + System.nanoTime();
+        final String body = "body of " + title;
+        blogManager.createEntry(new Blog(title, body));
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Blog>> futures = new ArrayList<Future<Blog>>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(new Callable<Blog>() {
+                    @Override
+                    public Blog call() throws Exception {
+                        start.await();
+                        return blogManager.getEntryCached(title);
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Blog> future : futures) {
+                Blog blog = future.get(CALL_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                assertNotNull(blog);
+                assertEquals(body, blog.getBody());
+            }
+
+            int lookups = blogManager.getLookupCount(title);
+            LOG.info("@CacheResult stampede of " + THREAD_COUNT + " calls with " + getBeanProviderName() + ": "
+                    + (lookups == 1 ? "coalesced" : "not coalesced") + ", method body ran " + lookups + " times");
+
+            assertTrue(lookups >= 1);
+            assertTrue(lookups <= THREAD_COUNT);
+
+            /* remove from the map, the cached value must still be returned without running the method */
+            blogManager.clearEntry(title);
+            Blog cached = blogManager.getEntryCached(title);
+            assertNotNull("Item should be in the cache thus not null", cached);
+            assertEquals(body, cached.getBody());
+            assertEquals(lookups, blogManager.getLookupCount(title));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
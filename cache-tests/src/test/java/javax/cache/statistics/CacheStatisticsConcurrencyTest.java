@@ -0,0 +1,124 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.statistics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheStatistics;
+import javax.cache.TestSupport;
+import javax.cache.util.ExcludeListExcluder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link CacheStatistics} counts stay exact when many threads use the cache at once.
+ * <p/>
+ * Each thread repeatedly gets a key which is present, gets a key which is never present, puts a key of its own
+ * and removes it again, so the expected change in every count is known exactly.
+ *
+ * @since 1.0
+ */
+public class CacheStatisticsConcurrencyTest extends TestSupport {
+
+    /**
+     * Rule used to exclude tests
+     */
+    @Rule
+    public ExcludeListExcluder rule = new ExcludeListExcluder(this.getClass());
+
+    private static final int THREAD_COUNT = 64;
+    private static final int ITERATIONS = 2000;
+    private static final int PRESENT_KEY_COUNT = 100;
+    private static final long WAIT_SECONDS = 60;
+
+    private Cache<Integer, Integer> cache;
+
+    @Before
+    public void setUp() {
+        cache = getCacheManager().<Integer, Integer>createCacheBuilder(getTestCacheName()).
+                setStatisticsEnabled(true).build();
+        for (int key = 0; key < PRESENT_KEY_COUNT; key++) {
+            cache.put(key, key);
+        }
+    }
+
+    @After
+    public void teardown() {
+        getCacheManager().removeCache(getTestCacheName());
+    }
+
+    @Test
+    public void countsAreExactUnderContention() throws Exception {
+        CacheStatistics statistics = cache.getStatistics();
+        long hits = statistics.getCacheHits();
+        long misses = statistics.getCacheMisses();
+        long gets = statistics.getCacheGets();
+        long puts = statistics.getCachePuts();
+        long removals = statistics.getCacheRemovals();
+
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                final int ownKeyBase = PRESENT_KEY_COUNT + thread * ITERATIONS;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            Integer presentKey = i % PRESENT_KEY_COUNT;
+                            assertEquals(presentKey, cache.get(presentKey));
+                            assertNull(cache.get(-1 - i));
+                            Integer ownKey = ownKeyBase + i;
+                            cache.put(ownKey, i);
+                            assertTrue(cache.remove(ownKey));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long operations = (long) THREAD_COUNT * ITERATIONS;
+        statistics = cache.getStatistics();
+        assertEquals(operations, statistics.getCacheHits() - hits);
+        assertEquals(operations, statistics.getCacheMisses() - misses);
+        assertEquals(2 * operations, statistics.getCacheGets() - gets);
+        assertEquals(operations, statistics.getCachePuts() - puts);
+        assertEquals(operations, statistics.getCacheRemovals() - removals);
+    }
+}
@@ -32,6 +32,15 @@ import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 
@@ -87,6 +96,78 @@ public class JMXTest {
         Assert.assertTrue((mBeanServer.queryNames(new ObjectName("javax.cache:*"), null).size()) >= 2);
     }
 
+    @Test
+    public void testIncrementalRegistration() throws Exception {
+        mBeanServerRegistrationUtility = new MBeanServerRegistrationUtility(cacheManager, mBeanServer, false);
+        Assert.assertTrue(mBeanServerRegistrationUtility.getRegisteredObjectNames().isEmpty());
+
+        Cache<Integer, String> cache = cacheManager.<Integer, String>createCacheBuilder("cache1")
+                .setStatisticsEnabled(true).build();
+        ObjectName objectName = mBeanServerRegistrationUtility.registerCacheStatistics(cache);
+        Assert.assertNotNull(objectName);
+        Assert.assertTrue(mBeanServer.isRegistered(objectName));
+        Assert.assertNull(mBeanServerRegistrationUtility.registerCacheStatistics(cache));
+
+        cacheManager.removeCache("cache1");
+        Assert.assertTrue(mBeanServerRegistrationUtility.unregisterCacheStatistics("cache1"));
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+        Assert.assertFalse(mBeanServerRegistrationUtility.unregisterCacheStatistics("cache1"));
+        Assert.assertTrue(mBeanServerRegistrationUtility.getRegisteredObjectNames().isEmpty());
+    }
+
+    @Test
+    public void testDisposeUnregistersTrackedCaches() throws Exception {
+        cacheManager.createCacheBuilder("cache1").setStatisticsEnabled(true).build();
+        mBeanServerRegistrationUtility = new MBeanServerRegistrationUtility(cacheManager, mBeanServer);
+        Cache<Integer, String> cache2 = cacheManager.<Integer, String>createCacheBuilder("cache2")
+                .setStatisticsEnabled(true).build();
+        mBeanServerRegistrationUtility.registerCacheStatistics(cache2);
+
+        Collection<ObjectName> objectNames = new ArrayList<ObjectName>(
+                mBeanServerRegistrationUtility.getRegisteredObjectNames());
+        Assert.assertEquals(2, objectNames.size());
+
+        mBeanServerRegistrationUtility.dispose();
+        for (ObjectName objectName : objectNames) {
+            Assert.assertFalse(mBeanServer.isRegistered(objectName));
+        }
+        Assert.assertTrue(mBeanServerRegistrationUtility.getRegisteredObjectNames().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentRegistrationOfSameCache() throws Exception {
+        mBeanServerRegistrationUtility = new MBeanServerRegistrationUtility(cacheManager, mBeanServer, false);
+        final Cache<Integer, String> cache = cacheManager.<Integer, String>createCacheBuilder("cache1")
+                .setStatisticsEnabled(true).build();
+        final CountDownLatch start = new CountDownLatch(1);
+        int threadCount = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<ObjectName>> futures = new ArrayList<Future<ObjectName>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<ObjectName>() {
+                    @Override
+                    public ObjectName call() throws Exception {
+                        start.await();
+                        return mBeanServerRegistrationUtility.registerCacheStatistics(cache);
+                    }
+                }));
+            }
+            start.countDown();
+
+            int registered = 0;
+            for (Future<ObjectName> future : futures) {
+                if (future.get(10, TimeUnit.SECONDS) != null) {
+                    registered++;
+                }
+            }
+            Assert.assertEquals(1, registered);
+            Assert.assertEquals(1, mBeanServerRegistrationUtility.getRegisteredObjectNames().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 
 
 
@@ -29,13 +29,20 @@ import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
-import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 /**
  * A convenience class for registering CacheStatisticsMBeans with an MBeanServer.
+ * <p/>
+ * Caches created or removed after construction can be registered and unregistered one at a time with
+ * {@link #registerCacheStatistics(Cache)} and {@link #unregisterCacheStatistics(String)}. The ObjectNames
+ * registered are tracked, so neither these nor {@link #dispose()} need to query the MBeanServer.
  *
  * @author Greg Luck
  * @since 1.0
@@ -47,6 +54,7 @@ public class MBeanServerRegistrationUtility {
     private MBeanServer mBeanServer;
     private CacheManager cacheManager;
     private Status status;
+    private final ConcurrentMap<String, ObjectName> registeredObjectNames = new ConcurrentHashMap<String, ObjectName>();
 
     /**
      * Creates a Management Service.
@@ -54,18 +62,29 @@ public class MBeanServerRegistrationUtility {
      * This should be disposed of when the CahceManager is.
      */
     public MBeanServerRegistrationUtility(CacheManager cacheManager, MBeanServer mBeanServer) {
+        this(cacheManager, mBeanServer, true);
+    }
+
+    /**
+     * Creates a Management Service.
+     * <p/>
+     * This should be disposed of when the CahceManager is.
+     *
+     * @param registerExistingCaches false to register no caches yet, for incremental registration of caches
+     *                               as they are created
+     */
+    public MBeanServerRegistrationUtility(CacheManager cacheManager, MBeanServer mBeanServer,
+                                          boolean registerExistingCaches) {
 
         this.cacheManager = cacheManager;
         this.mBeanServer = mBeanServer;
         status = Status.UNINITIALISED;
 
-        try {
+        if (registerExistingCaches) {
             for (Cache<?, ?> cache : this.cacheManager.getCaches()) {
                 //todo some caches may not be capturing statistics
                 registerCacheStatistics(cache);
             }
-        } catch (Exception e) {
-            throw new CacheException(e);
         }
         status = Status.STARTED;
     }
@@ -94,11 +113,66 @@ public class MBeanServerRegistrationUtility {
     }
 
 
-    private void registerCacheStatistics(Cache cache) throws InstanceAlreadyExistsException,
-            MBeanRegistrationException, NotCompliantMBeanException {
+    /**
+     * Registers the statistics of a cache, if it has statistics and is not already registered.
+     *
+     * @param cache the cache, typically one just created
+     * @return the ObjectName registered, or null if the cache has no statistics or was already registered
+     * @throws CacheException - all exceptions are wrapped in CacheException
+     */
+    public ObjectName registerCacheStatistics(Cache<?, ?> cache) {
         CacheStatistics cacheStatistics = cache.getStatistics();
-        if (cacheStatistics != null) {
-            mBeanServer.registerMBean(cacheStatistics, calculateObjectName(cacheManager.getName(), cacheStatistics.getName()));
+        if (cacheStatistics == null) {
+            return null;
+        }
+        ObjectName objectName = calculateObjectName(cacheManager.getName(), cacheStatistics.getName());
+        //claim the name first, so that only one of several threads registering the same cache does so
+        if (registeredObjectNames.putIfAbsent(cache.getName(), objectName) != null) {
+            return null;
+        }
+        try {
+            mBeanServer.registerMBean(cacheStatistics, objectName);
+        } catch (InstanceAlreadyExistsException e) {
+            registeredObjectNames.remove(cache.getName(), objectName);
+            throw new CacheException(e);
+        } catch (MBeanRegistrationException e) {
+            registeredObjectNames.remove(cache.getName(), objectName);
+            throw new CacheException(e);
+        } catch (NotCompliantMBeanException e) {
+            registeredObjectNames.remove(cache.getName(), objectName);
+            throw new CacheException(e);
+        }
+        return objectName;
+    }
+
+    /**
+     * Unregisters the statistics of a cache registered by this utility.
+     *
+     * @param cacheName the name of the cache, typically one just removed
+     * @return true if the statistics were registered
+     */
+    public boolean unregisterCacheStatistics(String cacheName) {
+        ObjectName objectName = registeredObjectNames.remove(cacheName);
+        if (objectName == null) {
+            return false;
+        }
+        unregister(objectName);
+        return true;
+    }
+
+    /**
+     * @return the ObjectNames currently registered by this utility
+     */
+    public Collection<ObjectName> getRegisteredObjectNames() {
+        return Collections.unmodifiableCollection(registeredObjectNames.values());
+    }
+
+    private void unregister(ObjectName objectName) {
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error unregistering object instance "
+                    + objectName + " . Error was " + e.getMessage(), e);
         }
     }
 
@@ -119,25 +193,9 @@ public class MBeanServerRegistrationUtility {
      * @throws CacheException - all exceptions are wrapped in CacheException
      */
     public void dispose() {
-
-        Set<ObjectName> registeredObjectNames = null;
-
-        try {
-            registeredObjectNames = mBeanServer.queryNames(
-                    new ObjectName("javax.cache:*,CacheManager=" + cacheManager.getName()), null);
-        } catch (MalformedObjectNameException e) {
-            // this should not happen
-            LOG.log(Level.SEVERE, "Error querying MBeanServer. Error was " + e.getMessage(), e);
-        }
-        for (ObjectName registeredObjectName : registeredObjectNames) {
-            try {
-                mBeanServer.unregisterMBean(registeredObjectName);
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "Error unregistering object instance "
-                        + registeredObjectName + " . Error was " + e.getMessage(), e);
-            }
+        for (String cacheName : registeredObjectNames.keySet()) {
+            unregisterCacheStatistics(cacheName);
         }
         status = Status.STOPPED;
     }
 }
-
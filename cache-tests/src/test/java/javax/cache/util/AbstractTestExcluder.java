@@ -31,10 +31,14 @@ import java.util.logging.Logger;
  * The exclude list is created by {@link ExcludeList} by creating a file in the root of your classpath called
  * "ExcludeList". There is an example in the testRI module for testing the RI.
  *
+ * Tests which are not excluded are timed by {@link TestTimingRule}.
+ *
  * @author Yannis Cosmadopoulos
  * @since 1.0
  */
 public abstract class AbstractTestExcluder implements MethodRule {
+    private static final TestTimingRule TIMING_RULE = new TestTimingRule();
+
     private final Logger logger = Logger.getLogger(getClass().getName());
 
     /**
@@ -46,7 +50,7 @@ public abstract class AbstractTestExcluder implements MethodRule {
         if (isExcluded(methodName)) {
             return new ExcludedStatement(className, methodName, logger);
         } else {
-            return statement;
+            return TIMING_RULE.apply(statement, frameworkMethod, o);
         }
     }
 
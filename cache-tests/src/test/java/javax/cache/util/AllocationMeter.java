@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the number of bytes allocated by the current thread.
+ * <p/>
+ * This relies on the HotSpot extension of {@link ThreadMXBean}. On other JVMs, or where thread
+ * allocation accounting is disabled, {@link #isSupported()} returns false and
+ * {@link #getAllocatedBytes()} returns -1.
+ *
+ * @since 1.0
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = lookupThreadMXBean();
+
+    private AllocationMeter() {
+        //utility class
+    }
+
+    /**
+     * @return true if allocated bytes can be measured on this JVM
+     */
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * @return the total number of bytes allocated by the current thread so far, or -1 if not supported
+     */
+    public static long getAllocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return -1;
+        }
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean lookupThreadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                    sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                    return sunThreadMXBean;
+                }
+            }
+        } catch (LinkageError e) {
+            //not a HotSpot JVM
+        } catch (UnsupportedOperationException e) {
+            //allocation accounting not available
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Measures the heap in use after garbage collection, and checks that objects can be collected, to find memory
+ * retained by a cache implementation.
+ * <p/>
+ * Garbage collection is requested with {@link System#gc()} until the heap used stops shrinking, so the results
+ * are only meaningful where explicit garbage collection is enabled, which {@link #isExplicitGcHonoured()} checks.
+ *
+ * @since 1.0
+ */
+public final class HeapMeter {
+
+    private static final MemoryMXBean MEMORY_MX_BEAN = ManagementFactory.getMemoryMXBean();
+    private static final int MAX_COLLECTIONS = 10;
+    private static final long SETTLE_MILLIS = 50;
+
+    private HeapMeter() {
+        //utility class
+    }
+
+    /**
+     * Collects garbage until every reference has been cleared, or no more progress is made.
+     *
+     * @param references weak or soft references to objects which should no longer be reachable
+     * @return the number of references which were not cleared
+     */
+    public static int collectUntilCleared(Collection<? extends Reference<?>> references) {
+        int retained = countRetained(references);
+        for (int i = 0; i < MAX_COLLECTIONS && retained > 0; i++) {
+            System.gc();
+            System.runFinalization();
+            try {
+                Thread.sleep(SETTLE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            retained = countRetained(references);
+        }
+        return retained;
+    }
+
+    /**
+     * Checks that an object reachable only through a weak reference is collected. Where explicit garbage collection
+     * is disabled, for example with -XX:+DisableExplicitGC, it is not, and tests which need objects to be collected
+     * should be skipped.
+     *
+     * @return true if {@link System#gc()} collected the object
+     */
+    public static boolean isExplicitGcHonoured() {
+        return collectUntilCleared(Collections.singletonList(new WeakReference<Object>(new Object()))) == 0;
+    }
+
+    private static int countRetained(Collection<? extends Reference<?>> references) {
+        int retained = 0;
+        for (Reference<?> reference : references) {
+            if (reference.get() != null) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * @return the bytes of heap in use now, without collecting garbage first
+     */
+    public static long getUsedHeap() {
+        return MEMORY_MX_BEAN.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Collects garbage until the heap used stops shrinking, then returns it.
+     *
+     * @return the bytes of heap in use after garbage collection
+     */
+    public static long getUsedHeapAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_COLLECTIONS; i++) {
+            System.gc();
+            System.runFinalization();
+            try {
+                Thread.sleep(SETTLE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long now = getUsedHeap();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A high dynamic range histogram of latencies in nanoseconds.
+ * <p/>
+ * Values are counted in buckets whose width grows with the value, so that any recorded value from 1ns to about
+ * an hour is reported within 1% of its true value using a fixed, small amount of memory. Larger values are
+ * counted as an hour. The minimum and maximum are exact.
+ * <p/>
+ * Recording is not thread safe. Record into one histogram per thread and {@link #add(LatencyHistogram)}
+ * them together afterwards.
+ * <p/>
+ * Closed loop measurements, where each operation waits for the previous one, under report latency when an
+ * operation stalls: the operations which would have been issued during the stall are never measured.
+ * {@link #recordValueWithExpectedInterval(long, long)} corrects for this coordinated omission, and
+ * {@link OpenLoopLoadGenerator} avoids it altogether.
+ *
+ * @since 1.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * The largest value which can be distinguished, about an hour
+     */
+    public static final long HIGHEST_TRACKABLE_NANOS = (1L << 42) - 1;
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = 64 - Long.numberOfLeadingZeros(HIGHEST_TRACKABLE_NANOS) - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + BUCKET_COUNT * SUB_BUCKET_HALF_COUNT];
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+    private double sum;
+
+    /**
+     * Records a latency
+     *
+     * @param nanos the latency in nanoseconds, which must not be negative
+     */
+    public void recordValue(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Latency cannot be negative: " + nanos);
+        }
+        counts[indexOf(Math.min(nanos, HIGHEST_TRACKABLE_NANOS))]++;
+        totalCount++;
+        minValue = Math.min(minValue, nanos);
+        maxValue = Math.max(maxValue, nanos);
+        sum += nanos;
+    }
+
+    /**
+     * Records a latency from a closed loop which issues an operation every expectedIntervalNanos. If the
+     * latency is longer than the interval, the latencies of the operations which would have been issued while
+     * waiting are recorded too: nanos - expectedIntervalNanos, nanos - 2 * expectedIntervalNanos and so on.
+     *
+     * @param nanos                 the latency in nanoseconds
+     * @param expectedIntervalNanos the expected time between operations, 0 or less for no correction
+     */
+    public void recordValueWithExpectedInterval(long nanos, long expectedIntervalNanos) {
+        recordValue(nanos);
+        if (expectedIntervalNanos <= 0) {
+            return;
+        }
+        for (long missed = nanos - expectedIntervalNanos; missed >= expectedIntervalNanos;
+             missed -= expectedIntervalNanos) {
+            recordValue(missed);
+        }
+    }
+
+    /**
+     * Adds all the values recorded in another histogram to this one
+     *
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        sum += other.sum;
+    }
+
+    /**
+     * Clears all recorded values
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the smallest value recorded, or 0 if none have been
+     */
+    public long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    /**
+     * @return the largest value recorded, or 0 if none have been
+     */
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if none have been
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns the value at a percentile. At least that percentage of the values recorded are less than or equal
+     * to the value returned.
+     *
+     * @param percentile from 0 to 100, for example 99.9
+     * @return the value at the percentile, or 0 if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.max(minValue, Math.min(maxValue, highestEquivalentValue(i)));
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * @param unit the unit to report in
+     * @return the count, p50, p99, p99.9 and max, for logging
+     */
+    public String summary(TimeUnit unit) {
+        String suffix = abbreviate(unit);
+        return "count=" + totalCount +
+                " p50=" + format(getValueAtPercentile(50), unit) + suffix +
+                " p99=" + format(getValueAtPercentile(99), unit) + suffix +
+                " p99.9=" + format(getValueAtPercentile(99.9), unit) + suffix +
+                " max=" + format(getMaxValue(), unit) + suffix;
+    }
+
+    @Override
+    public String toString() {
+        return summary(TimeUnit.MICROSECONDS);
+    }
+
+    private static String abbreviate(TimeUnit unit) {
+        switch (unit) {
+            case NANOSECONDS:
+                return "ns";
+            case MICROSECONDS:
+                return "us";
+            case MILLISECONDS:
+                return "ms";
+            case SECONDS:
+                return "s";
+            default:
+                return " " + unit.name().toLowerCase();
+        }
+    }
+
+    private static String format(long nanos, TimeUnit unit) {
+        return String.format("%.3f", (double) nanos / unit.toNanos(1));
+    }
+
+    /**
+     * Values below SUB_BUCKET_COUNT have a bucket each. Above that, bucket b holds the values whose top
+     * SUB_BUCKET_BITS bits, after shifting right by b, are the same.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
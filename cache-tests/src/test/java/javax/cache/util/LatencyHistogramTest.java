@@ -0,0 +1,166 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test for {@link LatencyHistogram}.
+ *
+ * @since 1.0
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void recordValue_WithinOnePercent() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            long value = (long) Math.pow(2, random.nextDouble() * 42);
+            LatencyHistogram histogram = new LatencyHistogram();
+            //the exact min and max are either side of the value, so the median comes from its bucket
+            histogram.recordValue(0);
+            histogram.recordValue(value);
+            histogram.recordValue(LatencyHistogram.HIGHEST_TRACKABLE_NANOS);
+            long median = histogram.getValueAtPercentile(50);
+            assertTrue(value + " reported as " + median, median >= value);
+            assertTrue(value + " reported as " + median, median - value <= value / 100);
+        }
+    }
+
+    @Test
+    public void recordValue_SmallValuesExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 256; value++) {
+            histogram.recordValue(value);
+        }
+        for (long value = 1; value < 256; value++) {
+            assertEquals(value - 1, histogram.getValueAtPercentile(100.0 * value / 256));
+        }
+    }
+
+    @Test
+    public void recordValue_Negative() {
+        try {
+            new LatencyHistogram().recordValue(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void recordValue_LargerThanTrackable() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = LatencyHistogram.HIGHEST_TRACKABLE_NANOS * 4;
+        histogram.recordValue(value);
+        assertEquals(value, histogram.getMaxValue());
+        assertEquals(1, histogram.getTotalCount());
+    }
+
+    @Test
+    public void getValueAtPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.recordValue(value);
+        }
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertWithinOnePercent(50000, histogram.getValueAtPercentile(50));
+        assertWithinOnePercent(99000, histogram.getValueAtPercentile(99));
+        assertWithinOnePercent(99900, histogram.getValueAtPercentile(99.9));
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+        assertEquals(50000.5, histogram.getMean(), 0.001);
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(100000, histogram.getMaxValue());
+    }
+
+    @Test
+    public void getValueAtPercentile_Empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMinValue());
+        assertEquals(0, histogram.getMaxValue());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void getValueAtPercentile_OutOfRange() {
+        try {
+            new LatencyHistogram().getValueAtPercentile(100.1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void recordValueWithExpectedInterval_BackFillsMissedSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValueWithExpectedInterval(100, 10);
+        //100, then the 90, 80 ... 10 of the operations which would have been issued during the stall
+        assertEquals(10, histogram.getTotalCount());
+        assertEquals(10, histogram.getMinValue());
+        assertEquals(100, histogram.getMaxValue());
+        assertEquals(55, histogram.getMean(), 0.001);
+        assertEquals(50, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void recordValueWithExpectedInterval_NoStall() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValueWithExpectedInterval(15, 10);
+        histogram.recordValueWithExpectedInterval(5, 10);
+        histogram.recordValueWithExpectedInterval(1000, 0);
+        assertEquals(3, histogram.getTotalCount());
+    }
+
+    @Test
+    public void add() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            first.recordValue(value);
+            second.recordValue(value + 100);
+        }
+        first.add(second);
+        assertEquals(200, first.getTotalCount());
+        assertEquals(1, first.getMinValue());
+        assertEquals(200, first.getMaxValue());
+        assertEquals(100, first.getValueAtPercentile(50));
+        assertEquals(100, second.getTotalCount());
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+        histogram.recordValue(10);
+        assertEquals(10, histogram.getValueAtPercentile(100));
+    }
+
+    private static void assertWithinOnePercent(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 100);
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks a concurrent history of single key cache operations for linearizability, using the Wing and Gong
+ * search with memoization of visited states.
+ * <p/>
+ * Every operation acts on one key, so the history of each key is checked on its own against a model holding
+ * that key's value, starting from absent. A history is linearizable if the operations can be ordered so
+ * that each result matches the model and no operation is placed before one which responded before it
+ * was invoked.
+ *
+ * @since 1.0
+ */
+public final class LinearizabilityChecker {
+
+    private static final int MAX_STATES = 1000000;
+
+    private LinearizabilityChecker() {
+        //utility class
+    }
+
+    /**
+     * Finds a key whose history is not linearizable, and shrinks its history to a minimal one which is
+     * still not linearizable.
+     *
+     * @param history all the completed operations
+     * @param <K>     the type of keys
+     * @param <V>     the type of values
+     * @return the minimal failing history, or an empty list if the whole history is linearizable
+     */
+    public static <K, V> List<Operation<K, V>> findViolation(List<? extends Operation<K, V>> history) {
+        Map<K, List<Operation<K, V>>> byKey = new LinkedHashMap<K, List<Operation<K, V>>>();
+        for (Operation<K, V> operation : history) {
+            List<Operation<K, V>> keyHistory = byKey.get(operation.getKey());
+            if (keyHistory == null) {
+                keyHistory = new ArrayList<Operation<K, V>>();
+                byKey.put(operation.getKey(), keyHistory);
+            }
+            keyHistory.add(operation);
+        }
+        for (List<Operation<K, V>> keyHistory : byKey.values()) {
+            if (!isLinearizable(keyHistory)) {
+                return minimize(keyHistory);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Checks the history of a single key, which starts absent.
+     *
+     * @param keyHistory the completed operations on one key
+     * @param <K>        the type of keys
+     * @param <V>        the type of values
+     * @return true if the history is linearizable
+     * @throws IllegalStateException if the history is too large to search
+     */
+    public static <K, V> boolean isLinearizable(List<? extends Operation<K, V>> keyHistory) {
+        return new Search<K, V>(keyHistory).search(new BitSet(keyHistory.size()), null);
+    }
+
+    /**
+     * Removes operations one at a time, keeping each removal which leaves the history not linearizable.
+     *
+     * @param keyHistory a history which is not linearizable
+     * @param <K>        the type of keys
+     * @param <V>        the type of values
+     * @return a history from which no single operation can be removed without it becoming linearizable
+     */
+    public static <K, V> List<Operation<K, V>> minimize(List<? extends Operation<K, V>> keyHistory) {
+        List<Operation<K, V>> minimal = new ArrayList<Operation<K, V>>(keyHistory);
+        for (int i = minimal.size() - 1; i >= 0; i--) {
+            Operation<K, V> removed = minimal.remove(i);
+            if (isLinearizable(minimal)) {
+                minimal.add(i, removed);
+            }
+        }
+        return minimal;
+    }
+
+    /**
+     * Formats a history in invocation order, with times relative to the first invocation.
+     *
+     * @param history the operations
+     * @return one line per operation
+     */
+    public static String format(List<? extends Operation<?, ?>> history) {
+        List<Operation<?, ?>> sorted = new ArrayList<Operation<?, ?>>(history);
+        Collections.sort(sorted, new Comparator<Operation<?, ?>>() {
+            @Override
+            public int compare(Operation<?, ?> o1, Operation<?, ?> o2) {
+                return Long.valueOf(o1.getInvokedNanos()).compareTo(o2.getInvokedNanos());
+            }
+        });
+        StringBuilder builder = new StringBuilder();
+        long origin = sorted.isEmpty() ? 0 : sorted.get(0).getInvokedNanos();
+        for (Operation<?, ?> operation : sorted) {
+            builder.append(String.format("%n  [%,10dns .. %,10dns] thread %d: %s",
+                    operation.getInvokedNanos() - origin, operation.getRespondedNanos() - origin,
+                    operation.getThreadId(), operation));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A completed operation on a single key, which knows how to apply itself to the model value of that key.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    public abstract static class Operation<K, V> {
+
+        private final K key;
+        private long threadId;
+        private long invokedNanos;
+        private long respondedNanos;
+
+        /**
+         * Constructor
+         *
+         * @param key the key operated on
+         */
+        protected Operation(K key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the key operated on
+         */
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * @return the id of the thread which invoked the operation
+         */
+        public long getThreadId() {
+            return threadId;
+        }
+
+        /**
+         * @return when the operation was invoked, from {@link System#nanoTime()}
+         */
+        public long getInvokedNanos() {
+            return invokedNanos;
+        }
+
+        /**
+         * @return when the operation responded, from {@link System#nanoTime()}
+         */
+        public long getRespondedNanos() {
+            return respondedNanos;
+        }
+
+        /**
+         * Records when the operation was invoked, by the current thread
+         */
+        public void invoked() {
+            threadId = Thread.currentThread().getId();
+            invokedNanos = System.nanoTime();
+        }
+
+        /**
+         * Records when the operation responded
+         */
+        public void responded() {
+            respondedNanos = System.nanoTime();
+        }
+
+        /**
+         * @param before the model value before the operation, null if absent
+         * @return true if the recorded result is the one the model gives
+         */
+        public abstract boolean isConsistent(V before);
+
+        /**
+         * @param before the model value before the operation, null if absent
+         * @return the model value after the operation, null if absent
+         */
+        public abstract V apply(V before);
+
+        /**
+         * Null safe equality of values
+         *
+         * @param value1 a value or null
+         * @param value2 a value or null
+         * @return true if both are null or they are equal
+         */
+        protected static boolean equal(Object value1, Object value2) {
+            return value1 == null ? value2 == null : value1.equals(value2);
+        }
+    }
+
+    /**
+     * The search over the orderings of one key's history
+     */
+    private static final class Search<K, V> {
+
+        private final List<? extends Operation<K, V>> history;
+        private final Set<State> visited = new HashSet<State>();
+
+        private Search(List<? extends Operation<K, V>> history) {
+            this.history = history;
+        }
+
+        private boolean search(BitSet linearized, V value) {
+            int size = history.size();
+            if (linearized.cardinality() == size) {
+                return true;
+            }
+            if (!visited.add(new State((BitSet) linearized.clone(), value))) {
+                return false;
+            }
+            if (visited.size() > MAX_STATES) {
+                throw new IllegalStateException("History of " + size + " operations is too large to check");
+            }
+
+            long earliestResponse = Long.MAX_VALUE;
+            for (int i = linearized.nextClearBit(0); i < size; i = linearized.nextClearBit(i + 1)) {
+                earliestResponse = Math.min(earliestResponse, history.get(i).getRespondedNanos());
+            }
+            for (int i = linearized.nextClearBit(0); i < size; i = linearized.nextClearBit(i + 1)) {
+                Operation<K, V> operation = history.get(i);
+                if (operation.getInvokedNanos() <= earliestResponse && operation.isConsistent(value)) {
+                    linearized.set(i);
+                    if (search(linearized, operation.apply(value))) {
+                        return true;
+                    }
+                    linearized.clear(i);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A point in the search: which operations have been linearized and the resulting model value
+     */
+    private static final class State {
+
+        private final BitSet linearized;
+        private final Object value;
+
+        private State(BitSet linearized, Object value) {
+            this.linearized = linearized;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State other = (State) o;
+            return linearized.equals(other.linearized) && Operation.equal(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * linearized.hashCode() + (value == null ? 0 : value.hashCode());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs an operation at a fixed rate, whether or not earlier operations have completed, and records latencies
+ * in {@link LatencyHistogram}s.
+ * <p/>
+ * Each operation has an intended start time on a fixed schedule. Its response time is measured from that
+ * intended time, not from when it actually started. When the system under test stalls, the operations which
+ * queue up behind the stall are charged for the wait, as real clients would be. This avoids the coordinated
+ * omission of closed loop tests. The service time, measured from the actual start, is recorded too, for
+ * comparison.
+ * <p/>
+ * The schedule is shared between the threads round robin. There must be enough threads to sustain the rate,
+ * otherwise the response times will grow throughout the run.
+ *
+ * @since 1.0
+ */
+public class OpenLoopLoadGenerator {
+
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final int threadCount;
+    private final long intervalNanos;
+
+    /**
+     * Constructor
+     *
+     * @param threadCount   the number of threads issuing operations
+     * @param ratePerSecond the total number of operations to start each second
+     */
+    public OpenLoopLoadGenerator(int threadCount, long ratePerSecond) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be at least 1: " + threadCount);
+        }
+        if (ratePerSecond < 1) {
+            throw new IllegalArgumentException("ratePerSecond must be at least 1: " + ratePerSecond);
+        }
+        this.threadCount = threadCount;
+        this.intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    }
+
+    /**
+     * Runs the operation on the schedule until the duration has passed, then waits for the operations
+     * started to complete and for the threads which ran them to end.
+     *
+     * @param operation the operation, which must be thread safe
+     * @param duration  how long to issue operations for
+     * @param unit      the unit of the duration
+     * @return the latencies recorded
+     * @throws InterruptedException if interrupted while waiting for the run to complete
+     */
+    public Result run(final Runnable operation, long duration, TimeUnit unit) throws InterruptedException {
+        final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        final long operationCount = unit.toNanos(duration) / intervalNanos;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                final int firstSlot = thread;
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        Result result = new Result();
+                        for (long slot = firstSlot; slot < operationCount; slot += threadCount) {
+                            long intended = start + slot * intervalNanos;
+                            waitUntil(intended);
+                            long actual = System.nanoTime();
+                            try {
+                                operation.run();
+                            } catch (RuntimeException e) {
+                                result.recordError(e);
+                            }
+                            long end = System.nanoTime();
+                            result.responseTime.recordValue(end - intended);
+                            result.serviceTime.recordValue(end - actual);
+                        }
+                        return result;
+                    }
+                }));
+            }
+
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                try {
+                    total.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Load generator thread failed", e.getCause());
+                }
+            }
+            total.elapsedNanos = System.nanoTime() - start;
+            return total;
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Parks until shortly before the time, as parking may overshoot, then spins.
+     */
+    private static void waitUntil(long nanoTime) {
+        for (long wait = nanoTime - System.nanoTime(); wait > 0; wait = nanoTime - System.nanoTime()) {
+            if (wait > SPIN_NANOS) {
+                LockSupport.parkNanos(wait - SPIN_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * The latencies recorded by a run
+     */
+    public static class Result {
+
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private long errorCount;
+        private RuntimeException firstError;
+        private long elapsedNanos;
+
+        /**
+         * @return the time from when each operation should have started until it completed
+         */
+        public LatencyHistogram getResponseTime() {
+            return responseTime;
+        }
+
+        /**
+         * @return the time from when each operation actually started until it completed
+         */
+        public LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        /**
+         * @return the number of operations which threw an exception
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return the first exception thrown by an operation, or null if none were
+         */
+        public RuntimeException getFirstError() {
+            return firstError;
+        }
+
+        /**
+         * @return the operations completed per second
+         */
+        public double getThroughput() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return responseTime.getTotalCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        private void recordError(RuntimeException e) {
+            errorCount++;
+            if (firstError == null) {
+                firstError = e;
+            }
+        }
+
+        private void add(Result other) {
+            responseTime.add(other.responseTime);
+            serviceTime.add(other.serviceTime);
+            errorCount += other.errorCount;
+            if (firstError == null) {
+                firstError = other.firstError;
+            }
+        }
+    }
+}
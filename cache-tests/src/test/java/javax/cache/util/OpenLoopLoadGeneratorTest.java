@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test for {@link OpenLoopLoadGenerator}.
+ *
+ * @since 1.0
+ */
+public class OpenLoopLoadGeneratorTest {
+
+    private static final Runnable NOTHING = new Runnable() {
+        @Override
+        public void run() {
+            //no work
+        }
+    };
+
+    @Test
+    public void run_IssuesOperationsAtTheRate() throws Exception {
+        OpenLoopLoadGenerator.Result result = new OpenLoopLoadGenerator(2, 1000).run(NOTHING, 500, TimeUnit.MILLISECONDS);
+        assertEquals(500, result.getResponseTime().getTotalCount());
+        assertEquals(500, result.getServiceTime().getTotalCount());
+        assertEquals(0, result.getErrorCount());
+        assertTrue("throughput " + result.getThroughput(), result.getThroughput() > 0);
+    }
+
+    /**
+     * The operations scheduled during a stall are charged for waiting, so their response times are long even
+     * though their service times are short. The bounds only depend on the order of the operations, so a slow
+     * machine makes the waits longer but cannot fail the test.
+     */
+    @Test
+    public void run_ChargesStallToQueuedOperations() throws Exception {
+        final AtomicBoolean stalled = new AtomicBoolean();
+        Runnable stallOnce = new Runnable() {
+            @Override
+            public void run() {
+                if (stalled.compareAndSet(false, true)) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        OpenLoopLoadGenerator.Result result = new OpenLoopLoadGenerator(1, 1000).run(stallOnce, 300, TimeUnit.MILLISECONDS);
+
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        assertTrue(result.getResponseTime().getMaxValue() >= 100 * millis);
+        //the first 50 of the 300 operations queued behind the stall for at least 50ms, more than the top 15%
+        assertTrue(result.getResponseTime().summary(TimeUnit.MILLISECONDS),
+                result.getResponseTime().getValueAtPercentile(85) >= 50 * millis);
+        assertTrue(result.getServiceTime().summary(TimeUnit.MILLISECONDS),
+                result.getServiceTime().getValueAtPercentile(50) < 50 * millis);
+    }
+
+    @Test
+    public void run_CountsErrors() throws Exception {
+        final IllegalStateException error = new IllegalStateException();
+        OpenLoopLoadGenerator.Result result = new OpenLoopLoadGenerator(2, 1000).run(new Runnable() {
+            @Override
+            public void run() {
+                throw error;
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        assertEquals(100, result.getErrorCount());
+        assertSame(error, result.getFirstError());
+        assertEquals(100, result.getResponseTime().getTotalCount());
+    }
+
+    @Test
+    public void constructor_InvalidArguments() {
+        try {
+            new OpenLoopLoadGenerator(0, 1000);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        try {
+            new OpenLoopLoadGenerator(1, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
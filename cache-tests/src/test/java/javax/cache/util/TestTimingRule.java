@@ -0,0 +1,263 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilenameFilter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the wall time, CPU time and bytes allocated by each test, and optionally fails tests which have become
+ * slower than a baseline.
+ * <p/>
+ * Nothing is recorded unless one of these system properties is set:
+ * <ul>
+ * <li>{@value #REPORT_PROPERTY} - the CSV file to write the timings of every test in this JVM to, when it exits</li>
+ * <li>{@value #BASELINE_PROPERTY} - the reports of an earlier run, as a comma separated list of files or of
+ * directories holding tck-timings*.csv files, as the parallel profile writes one report per JVM. A test which passes,
+ * but whose wall time is more than {@value #THRESHOLD_PROPERTY} times (default 1.5) its wall time in the baseline,
+ * fails. Tests which failed in the baseline, or which took less than {@value #MIN_MILLIS_PROPERTY} milliseconds
+ * (default 10) in both runs, are never failed, as their timings are mostly noise</li>
+ * </ul>
+ * A baseline which cannot be read is logged as a warning and ignored.
+ * CPU time and allocated bytes are those of the thread running the test, and so leave out the work of any threads
+ * the test starts. They are -1 where the JVM cannot measure them.
+ * <p/>
+ * This rule is applied to every test which is not excluded by {@link AbstractTestExcluder}.
+ *
+ * @since 1.0
+ */
+public class TestTimingRule implements MethodRule {
+
+    /**
+     * The system property naming the CSV file to write
+     */
+    public static final String REPORT_PROPERTY = "tck.timing.report";
+
+    /**
+     * The system property naming the CSV files, or directories of them, of an earlier run to compare with
+     */
+    public static final String BASELINE_PROPERTY = "tck.timing.baseline";
+
+    /**
+     * The system property holding how many times slower than its baseline a test may be
+     */
+    public static final String THRESHOLD_PROPERTY = "tck.timing.threshold";
+
+    /**
+     * The system property holding the wall time, in milliseconds, below which a test is never failed
+     */
+    public static final String MIN_MILLIS_PROPERTY = "tck.timing.minMillis";
+
+    private static final Logger LOG = Logger.getLogger(TestTimingRule.class.getName());
+    private static final String HEADER = "test,result,wallMillis,cpuMillis,allocatedBytes";
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final String REPORT = getProperty(REPORT_PROPERTY);
+    private static final Map<String, Double> BASELINE = readBaseline(getProperty(BASELINE_PROPERTY));
+    private static final double THRESHOLD = getDoubleProperty(THRESHOLD_PROPERTY, 1.5);
+    private static final double MIN_MILLIS = getDoubleProperty(MIN_MILLIS_PROPERTY, 10);
+    private static final Queue<String> ROWS = new ConcurrentLinkedQueue<String>();
+    private static final FilenameFilter REPORT_FILTER = new FilenameFilter() {
+        public boolean accept(File dir, String name) {
+            return name.startsWith("tck-timings") && name.endsWith(".csv");
+        }
+    };
+
+    static {
+        if (REPORT != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread("tck-timing-report") {
+                @Override
+                public void run() {
+                    writeReport();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true if timings are recorded
+     */
+    public static boolean isEnabled() {
+        return REPORT != null || BASELINE != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Statement apply(Statement statement, FrameworkMethod frameworkMethod, Object o) {
+        if (!isEnabled()) {
+            return statement;
+        }
+        return new TimingStatement(statement, o.getClass().getName() + "#" + frameworkMethod.getName());
+    }
+
+    private static String getProperty(String key) {
+        String value = System.getProperty(key);
+        return value == null || value.trim().length() == 0 ? null : value.trim();
+    }
+
+    private static double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            LOG.warning(key + " is not a number: " + value + ". Using " + defaultValue + " instead.");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads the baseline, which may be several reports or directories of them, separated by commas. Only tests
+     * which passed in the baseline are compared.
+     *
+     * @return the wall time of each test, or null if there is no baseline or it cannot be read
+     */
+    private static Map<String, Double> readBaseline(String fileNames) {
+        if (fileNames == null) {
+            return null;
+        }
+        Map<String, Double> baseline = new HashMap<String, Double>();
+        try {
+            for (String fileName : fileNames.split(",")) {
+                File file = new File(fileName.trim());
+                File[] reports = file.isDirectory() ? file.listFiles(REPORT_FILTER) : new File[] {file};
+                if (reports == null || reports.length == 0) {
+                    throw new IOException("No timing reports found in " + file);
+                }
+                for (File report : reports) {
+                    readReport(report, baseline);
+                }
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to read the timing baseline " + fileNames
+                    + ". Tests will not be compared with it.", e);
+            return null;
+        } catch (NumberFormatException e) {
+            LOG.log(Level.WARNING, "The timing baseline " + fileNames + " is not a timing report."
+                    + " Tests will not be compared with it.", e);
+            return null;
+        }
+        LOG.info("Comparing test timings with " + baseline.size() + " tests in " + fileNames);
+        return baseline;
+    }
+
+    private static void readReport(File report, Map<String, Double> baseline) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(report));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] values = line.split(",");
+                if (values.length >= 3 && "passed".equals(values[1])) {
+                    baseline.put(values[0], Double.valueOf(values[2]));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void writeReport() {
+        File file = new File(REPORT);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            Writer writer = new FileWriter(file);
+            try {
+                writer.write(HEADER + "\n");
+                for (String row : ROWS) {
+                    writer.write(row + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to write test timings to " + file, e);
+        }
+    }
+
+    private static long getCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Statement which times the test it wraps
+     */
+    private static final class TimingStatement extends Statement {
+        private final Statement statement;
+        private final String testName;
+
+        private TimingStatement(Statement statement, String testName) {
+            this.statement = statement;
+            this.testName = testName;
+        }
+
+        @Override
+        public void evaluate() throws Throwable {
+            long cpuBefore = getCpuTime();
+            long bytesBefore = AllocationMeter.getAllocatedBytes();
+            long start = System.nanoTime();
+            boolean passed = false;
+            double wallMillis;
+            try {
+                statement.evaluate();
+                passed = true;
+            } finally {
+                wallMillis = toMillis(System.nanoTime() - start);
+                double cpuMillis = cpuBefore < 0 ? -1 : toMillis(getCpuTime() - cpuBefore);
+                long bytes = bytesBefore < 0 ? -1 : AllocationMeter.getAllocatedBytes() - bytesBefore;
+                ROWS.add(String.format(Locale.ENGLISH, "%s,%s,%.3f,%.3f,%d", testName,
+                        passed ? "passed" : "failed", wallMillis, cpuMillis, bytes));
+            }
+            checkBaseline(wallMillis);
+        }
+
+        private void checkBaseline(double wallMillis) {
+            Double baselineMillis = BASELINE == null ? null : BASELINE.get(testName);
+            if (baselineMillis == null || Math.max(wallMillis, baselineMillis) < MIN_MILLIS) {
+                return;
+            }
+            if (wallMillis > THRESHOLD * baselineMillis) {
+                throw new AssertionError(String.format(Locale.ENGLISH,
+                        "%s took %.1f ms, more than %.2f times its baseline of %.1f ms",
+                        testName, wallMillis, THRESHOLD, baselineMillis));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import java.util.List;
+
+/**
+ * Finds samples, taken at regular intervals over a long run, which trend upward once warmed up.
+ *
+ * @since 1.0
+ */
+public final class TrendDetector {
+
+    private TrendDetector() {
+        //utility class
+    }
+
+    /**
+     * Adds a description of the samples to trends if they grow over the run, after warm up, by more than the
+     * tolerance and by more than noise.
+     * <p/>
+     * The first fifth of the samples is ignored as warm up. The samples trend upward if the mean of the last third
+     * of the rest is more than tolerance times the mean of the first third, and the least squares slope of all of
+     * them is positive.
+     *
+     * @param trends    the descriptions of the samples which trend upward
+     * @param what      what was sampled
+     * @param samples   the samples in order
+     * @param tolerance the factor by which the samples may grow
+     * @param noise     growth which is ignored however large the factor
+     */
+    public static void addIfTrending(List<String> trends, String what, long[] samples, double tolerance, long noise) {
+        int from = samples.length / 5;
+        int count = samples.length - from;
+        int third = count / 3;
+        if (third == 0) {
+            return;
+        }
+        double first = mean(samples, from, from + third);
+        double last = mean(samples, samples.length - third, samples.length);
+
+        double meanX = (count - 1) / 2.0;
+        double meanY = mean(samples, from, samples.length);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < count; i++) {
+            covariance += (i - meanX) * (samples[from + i] - meanY);
+            variance += (i - meanX) * (i - meanX);
+        }
+        double slope = covariance / variance;
+
+        if (slope > 0 && last > first * tolerance && last - first > noise) {
+            trends.add(String.format("%s from %.0f to %.0f, slope %.1f per sample", what, first, last, slope));
+        }
+    }
+
+    private static double mean(long[] samples, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += samples[i];
+        }
+        return sum / (to - from);
+    }
+}
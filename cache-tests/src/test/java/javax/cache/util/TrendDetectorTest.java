@@ -0,0 +1,118 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package javax.cache.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static javax.cache.util.TrendDetector.addIfTrending;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for {@link TrendDetector}.
+ *
+ * @since 1.0
+ */
+public class TrendDetectorTest {
+
+    private static final long HEAP_NOISE_BYTES = 1024 * 1024;
+
+    @Test
+    public void addIfTrending_Flat() {
+        long[] samples = new long[30];
+        Random random = new Random(1);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 50000000 + random.nextInt(500000);
+        }
+        List<String> trends = new ArrayList<String>();
+        addIfTrending(trends, "flat", samples, 1.25, HEAP_NOISE_BYTES);
+        assertTrue(trends.isEmpty());
+    }
+
+    @Test
+    public void addIfTrending_Rising() {
+        long[] samples = new long[30];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 50000000 + i * 3000000L;
+        }
+        List<String> trends = new ArrayList<String>();
+        addIfTrending(trends, "rising", samples, 1.25, HEAP_NOISE_BYTES);
+        assertEquals(1, trends.size());
+        assertTrue(trends.get(0), trends.get(0).startsWith("rising from"));
+    }
+
+    /**
+     * Samples which vary by 40% at random but do not grow are not a trend
+     */
+    @Test
+    public void addIfTrending_Noisy() {
+        for (long seed = 0; seed < 20; seed++) {
+            long[] samples = new long[30];
+            Random random = new Random(seed);
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = 50000000 + random.nextInt(20000000);
+            }
+            List<String> trends = new ArrayList<String>();
+            addIfTrending(trends, "noisy", samples, 1.25, HEAP_NOISE_BYTES);
+            assertTrue(trends.toString(), trends.isEmpty());
+        }
+    }
+
+    /**
+     * High samples while warming up are ignored
+     */
+    @Test
+    public void addIfTrending_WarmUpIgnored() {
+        long[] samples = new long[30];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i < 5 ? 10 : 100 + i * 100;
+        }
+        List<String> trends = new ArrayList<String>();
+        addIfTrending(trends, "warm up", samples, 1.25, 0);
+        assertEquals(1, trends.size());
+
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i < 5 ? 1000 : 10;
+        }
+        trends.clear();
+        addIfTrending(trends, "warm up", samples, 1.25, 0);
+        assertTrue(trends.isEmpty());
+    }
+
+    /**
+     * Growth within the noise is ignored however large it is as a factor
+     */
+    @Test
+    public void addIfTrending_WithinNoise() {
+        List<String> trends = new ArrayList<String>();
+        addIfTrending(trends, "threads", new long[] {10, 10, 10, 10, 10, 10, 10, 10, 11, 11, 11, 11}, 1.0, 1);
+        assertTrue(trends.isEmpty());
+        addIfTrending(trends, "threads", new long[] {10, 10, 10, 10, 10, 11, 12, 13, 14, 15, 16, 17}, 1.0, 1);
+        assertEquals(1, trends.size());
+    }
+
+    @Test
+    public void addIfTrending_TooFewSamples() {
+        List<String> trends = new ArrayList<String>();
+        addIfTrending(trends, "short", new long[] {1, 100}, 1.25, 0);
+        assertTrue(trends.isEmpty());
+    }
+}
@@ -23,6 +23,8 @@ import com.google.inject.Injector;
 import com.google.inject.Provider;
 import manager.CacheNameOnEachMethodBlogManagerImpl;
 import manager.ClassLevelCacheConfigBlogManagerImpl;
+import manager.CountingBlogManagerImpl;
+import manager.MultiParameterKeyManager;
 import manager.UsingDefaultCacheNameBlogManagerImpl;
 
 import javax.cache.CacheManager;
@@ -50,6 +52,8 @@ public class GuiceBeanProvider implements BeanProvider {
                 bind(CacheNameOnEachMethodBlogManagerImpl.class);
                 bind(ClassLevelCacheConfigBlogManagerImpl.class);
                 bind(UsingDefaultCacheNameBlogManagerImpl.class);
+                bind(CountingBlogManagerImpl.class);
+                bind(MultiParameterKeyManager.class);
                 bind(CacheManager.class).toProvider(new Provider<CacheManager>() {
 
                     @Override
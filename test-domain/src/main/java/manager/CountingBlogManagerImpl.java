@@ -0,0 +1,126 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package manager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.annotation.CacheKeyParam;
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheRemoveEntry;
+import javax.cache.annotation.CacheResult;
+
+import domain.Blog;
+
+/**
+ * A BlogManager which counts how often the body of each method annotated with {@link CacheResult} runs, per title,
+ * and takes {@link #LOOKUP_MILLIS} to look up an entry, like a database would.
+ * <p/>
+ * The entries and counts are static, as the harnesses may return a new instance, or a proxy, for every lookup.
+ *
+ * @since 1.0
+ */
+public class CountingBlogManagerImpl implements BlogManager {
+
+    /**
+     * How long the body of getEntryCached takes, in milliseconds
+     */
+    public static final long LOOKUP_MILLIS = 100;
+
+    private static final ConcurrentMap<String, Blog> MAP = new ConcurrentHashMap<String, Blog>();
+    private static final ConcurrentMap<String, AtomicInteger> INVOCATIONS = new ConcurrentHashMap<String, AtomicInteger>();
+
+    /**
+     * @see manager.BlogManager#getEntryCached(java.lang.String)
+     */
+    @CacheResult(cacheName = "countingBlogManager")
+    public Blog getEntryCached(String title) {
+        return lookup(title);
+    }
+
+    /**
+     * @see manager.BlogManager#getEntryCached(java.lang.String, java.lang.String, java.lang.String)
+     */
+    @CacheResult(cacheName = "countingBlogManager")
+    public Blog getEntryCached(String randomArg, @CacheKeyParam String title, String randomArg2) {
+        return lookup(title);
+    }
+
+    /**
+     * @see manager.BlogManager#getEntryRaw(java.lang.String)
+     */
+    public Blog getEntryRaw(String title) {
+        return MAP.get(title);
+    }
+
+    /**
+     * @see manager.BlogManager#clearEntryFromCache(java.lang.String)
+     */
+    @CacheRemoveEntry(cacheName = "countingBlogManager")
+    public void clearEntryFromCache(String title) {
+    }
+
+    /**
+     * @see manager.BlogManager#clearEntry(java.lang.String)
+     */
+    public void clearEntry(String title) {
+        MAP.remove(title);
+    }
+
+    /**
+     * @see manager.BlogManager#clearCache()
+     */
+    @CacheRemoveAll(cacheName = "countingBlogManager")
+    public void clearCache() {
+    }
+
+    /**
+     * @see manager.BlogManager#createEntry(domain.Blog)
+     */
+    public void createEntry(Blog blog) {
+        MAP.put(blog.getTitle(), blog);
+    }
+
+    /**
+     * @param title the title
+     * @return the number of times the body of a getEntryCached method has run for the title
+     */
+    public int getLookupCount(String title) {
+        AtomicInteger count = INVOCATIONS.get(title);
+        return count == null ? 0 : count.get();
+    }
+
+    private Blog lookup(String title) {
+        AtomicInteger count = INVOCATIONS.get(title);
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = INVOCATIONS.putIfAbsent(title, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+        try {
+            TimeUnit.MILLISECONDS.sleep(LOOKUP_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return MAP.get(title);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ *  Copyright 2011 Terracotta, Inc.
+ *  Copyright 2011 Oracle, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package manager;
+
+import javax.cache.annotation.CacheRemoveAll;
+import javax.cache.annotation.CacheResult;
+
+/**
+ * Methods annotated with {@link CacheResult} taking 1 to 10 parameters, all of which make up the generated key.
+ * <p/>
+ * The methods return their first parameter. They share the {@link #CACHE_NAME} cache, where keys of different
+ * lengths never collide.
+ *
+ * @since 1.0
+ */
+public class MultiParameterKeyManager {
+
+    /**
+     * The name of the cache used by every method
+     */
+    public static final String CACHE_NAME = "multiParameterKeys";
+
+    /**
+     * The largest number of parameters of a method
+     */
+    public static final int MAX_PARAMETERS = 10;
+
+    /**
+     * Removes all entries from the cache
+     */
+    @CacheRemoveAll(cacheName = CACHE_NAME)
+    public void clearCache() {
+    }
+
+    /**
+     * @param p1 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get1(String p1) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get2(String p1, String p2) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get3(String p1, String p2, String p3) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get4(String p1, String p2, String p3, String p4) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @param p5 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get5(String p1, String p2, String p3, String p4, String p5) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @param p5 key parameter
+     * @param p6 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get6(String p1, String p2, String p3, String p4, String p5, String p6) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @param p5 key parameter
+     * @param p6 key parameter
+     * @param p7 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get7(String p1, String p2, String p3, String p4, String p5, String p6, String p7) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @param p5 key parameter
+     * @param p6 key parameter
+     * @param p7 key parameter
+     * @param p8 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get8(String p1, String p2, String p3, String p4, String p5, String p6, String p7, String p8) {
+        return p1;
+    }
+
+    /**
+     * @param p1 key parameter
+     * @param p2 key parameter
+     * @param p3 key parameter
+     * @param p4 key parameter
+     * @param p5 key parameter
+     * @param p6 key parameter
+     * @param p7 key parameter
+     * @param p8 key parameter
+     * @param p9 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get9(String p1, String p2, String p3, String p4, String p5, String p6, String p7, String p8,
+                       String p9) {
+        return p1;
+    }
+
+    /**
+     * @param p1  key parameter
+     * @param p2  key parameter
+     * @param p3  key parameter
+     * @param p4  key parameter
+     * @param p5  key parameter
+     * @param p6  key parameter
+     * @param p7  key parameter
+     * @param p8  key parameter
+     * @param p9  key parameter
+     * @param p10 key parameter
+     * @return p1
+     */
+    @CacheResult(cacheName = CACHE_NAME)
+    public String get10(String p1, String p2, String p3, String p4, String p5, String p6, String p7, String p8,
+                        String p9, String p10) {
+        return p1;
+    }
+}